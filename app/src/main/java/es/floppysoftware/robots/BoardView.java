@@ -0,0 +1,457 @@
+/**
+ * BoardView.java
+ */
+package es.floppysoftware.robots;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+/**
+ * Implements a scrollable and zoomable view of the board.
+ *
+ * Only the cells inside the viewport are drawn, so the draw cost
+ * depends on the visible area, not on the board size. When the
+ * cells are too small to show their images, a reduced detail
+ * level is used: one pixel per cell.
+ */
+public class BoardView extends View {
+
+    static private final float SCALE_MAX = 4.0f;        // Max. zoom
+    static private final float DETAIL_MIN_SIZE = 8.0f;  // Min. cell size in pixels to draw images
+    static private final int FOLLOW_MARGIN = 1;         // # of cells to keep around the human
+
+    // Image resources, related to cell contents type in the same order
+    static private final int imageResources[] = {
+            R.drawable.cell_ground, R.drawable.cell_wall, R.drawable.cell_human,
+            R.drawable.cell_robot, R.drawable.cell_scrap, R.drawable.cell_dead,
+            R.drawable.cell_robot_win, R.drawable.cell_human_win,
+            R.drawable.cell_robot
+    };
+
+    // Board
+    private Cell[][] cells;  // Board cells
+    private int rows;        // # of board rows
+    private int cols;        // # of board columns
+
+    // Images
+    private Bitmap[] tiles;       // Cell images, one for each contents type
+    private int[] detailColors;   // Cell colors for the reduced detail level
+    private int tileSize;         // Cell image size in pixels
+
+    // Viewport
+    private float scale = 1.0f;  // Zoom
+    private float panX;          // Viewport position on board, in pixels
+    private float panY;          //
+
+    // Cell to keep in view
+    private int followRow = -1;
+    private int followCol = -1;
+
+    // Reduced detail level: one pixel per visible cell
+    private Bitmap detailBitmap;
+    private int[] detailPixels;
+
+    // Drawing
+    private Paint tilePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private Paint detailPaint = new Paint();
+    private Rect srcRect = new Rect();
+    private RectF dstRect = new RectF();
+
+    // Gestures
+    private ScaleGestureDetector scaleDetector;
+    private GestureDetector panDetector;
+
+    /**
+     * Constructor
+     *
+     * @param context  Context
+     */
+    public BoardView(Context context) {
+
+        super(context);
+
+        init(context);
+    }
+
+    /**
+     * Constructor, used when inflating from a layout.
+     *
+     * @param context  Context
+     * @param attrs    Attributes
+     */
+    public BoardView(Context context, AttributeSet attrs) {
+
+        super(context, attrs);
+
+        init(context);
+    }
+
+    /**
+     * Load the cell images and set up the gestures.
+     *
+     * @param context  Context
+     */
+    private void init(Context context) {
+
+        // Load the cell images, and get a color for each one
+        tiles = new Bitmap[imageResources.length];
+        detailColors = new int[imageResources.length];
+
+        for(int i = 0; i < imageResources.length; ++i) {
+
+            tiles[i] = BitmapFactory.decodeResource(getResources(), imageResources[i]);
+
+            // The color is the average of the image
+            Bitmap pixel = Bitmap.createScaledBitmap(tiles[i], 1, 1, true);
+            detailColors[i] = pixel.getPixel(0, 0);
+            pixel.recycle();
+        }
+
+        // All cell images have the same size
+        tileSize = tiles[0].getWidth();
+
+        // Gestures: pinch to zoom, drag to pan
+        scaleDetector = new ScaleGestureDetector(context, scaleListener);
+        panDetector = new GestureDetector(context, panListener);
+    }
+
+    /**
+     * Set the board to show.
+     *
+     * @param cells  Board cells
+     */
+    public void setBoard(Cell[][] cells) {
+
+        this.cells = cells;
+
+        rows = cells.length;
+        cols = cells[0].length;
+
+        // The view size may change
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Keep a cell in view, usually the human one. The viewport
+     * is moved only if the cell is too near of its borders.
+     *
+     * @param row  Row position on board
+     * @param col  Column position on board
+     */
+    public void follow(int row, int col) {
+
+        followRow = row;
+        followCol = col;
+
+        // We need the view size
+        if(getWidth() > 0 && getHeight() > 0) {
+
+            float size = getCellSize();
+            float margin = FOLLOW_MARGIN * size;
+
+            // Cell position on board
+            float left = col * size;
+            float top = row * size;
+
+            // Adjust horizontally
+            if(left - margin < panX)
+                panX = left - margin;
+            else if(left + size + margin > panX + getWidth())
+                panX = left + size + margin - getWidth();
+
+            // Adjust vertically
+            if(top - margin < panY)
+                panY = top - margin;
+            else if(top + size + margin > panY + getHeight())
+                panY = top + size + margin - getHeight();
+
+            clampPan();
+        }
+
+        invalidate();
+    }
+
+    /**
+     * Return the cell size in pixels, according to the zoom.
+     *
+     * @return  Cell size
+     */
+    private float getCellSize() {
+
+        return tileSize * scale;
+    }
+
+    /**
+     * Return the min. zoom: the whole board in view, but
+     * never less than one pixel per cell.
+     *
+     * @return  Min. zoom
+     */
+    private float getScaleMin() {
+
+        float fit = 1.0f;
+
+        if(cols > 0 && rows > 0 && getWidth() > 0 && getHeight() > 0)
+            fit = Math.min((float) getWidth() / (cols * tileSize), (float) getHeight() / (rows * tileSize));
+
+        return Math.max(Math.min(fit, 1.0f), 1.0f / tileSize);
+    }
+
+    /**
+     * Keep the viewport inside the board.
+     */
+    private void clampPan() {
+
+        float size = getCellSize();
+
+        panX = Math.max(0, Math.min(panX, cols * size - getWidth()));
+        panY = Math.max(0, Math.min(panY, rows * size - getHeight()));
+    }
+
+    /**
+     * Method called to know the view size. We would like to
+     * show the whole board at its natural size.
+     *
+     * @param widthMeasureSpec   Width requirements
+     * @param heightMeasureSpec  Height requirements
+     */
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+
+        setMeasuredDimension(resolveSize(cols * tileSize, widthMeasureSpec),
+                resolveSize(rows * tileSize, heightMeasureSpec));
+    }
+
+    /**
+     * Method called when the view size changes.
+     *
+     * @param w     New width
+     * @param h     New height
+     * @param oldw  Old width
+     * @param oldh  Old height
+     */
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+
+        super.onSizeChanged(w, h, oldw, oldh);
+
+        // Keep the zoom in range
+        scale = Math.max(scale, getScaleMin());
+
+        // Keep the human in view
+        if(followRow >= 0)
+            follow(followRow, followCol);
+        else
+            clampPan();
+    }
+
+    /**
+     * Method called to draw the view.
+     *
+     * @param canvas  Canvas
+     */
+    @Override
+    protected void onDraw(Canvas canvas) {
+
+        // Nothing to draw yet
+        if(cells == null)
+            return;
+
+        float size = getCellSize();
+
+        // Calculate the visible cells
+        int firstRow = Math.max(0, (int) (panY / size));
+        int lastRow = Math.min(rows - 1, (int) ((panY + getHeight()) / size));
+        int firstCol = Math.max(0, (int) (panX / size));
+        int lastCol = Math.min(cols - 1, (int) ((panX + getWidth()) / size));
+
+        // Draw them, according to the detail level
+        if(size < DETAIL_MIN_SIZE)
+            drawDetailLow(canvas, size, firstRow, lastRow, firstCol, lastCol);
+        else
+            drawDetailFull(canvas, size, firstRow, lastRow, firstCol, lastCol);
+    }
+
+    /**
+     * Draw the visible cells with their images.
+     *
+     * @param canvas    Canvas
+     * @param size      Cell size in pixels
+     * @param firstRow  First visible row
+     * @param lastRow   Last visible row
+     * @param firstCol  First visible column
+     * @param lastCol   Last visible column
+     */
+    private void drawDetailFull(Canvas canvas, float size, int firstRow, int lastRow, int firstCol, int lastCol) {
+
+        for(int r = firstRow; r <= lastRow; ++r) {
+
+            float top = r * size - panY;
+
+            for(int c = firstCol; c <= lastCol; ++c) {
+
+                float left = c * size - panX;
+
+                dstRect.set(left, top, left + size, top + size);
+
+                canvas.drawBitmap(tiles[cells[r][c].getType()], null, dstRect, tilePaint);
+            }
+        }
+    }
+
+    /**
+     * Draw the visible cells with a pixel for each one.
+     *
+     * @param canvas    Canvas
+     * @param size      Cell size in pixels
+     * @param firstRow  First visible row
+     * @param lastRow   Last visible row
+     * @param firstCol  First visible column
+     * @param lastCol   Last visible column
+     */
+    private void drawDetailLow(Canvas canvas, float size, int firstRow, int lastRow, int firstCol, int lastCol) {
+
+        int width = lastCol - firstCol + 1;
+        int height = lastRow - firstRow + 1;
+
+        // Create the bitmap, only as big as the visible cells
+        if(detailBitmap == null || detailBitmap.getWidth() < width || detailBitmap.getHeight() < height) {
+
+            int bitmapWidth = width;
+            int bitmapHeight = height;
+
+            if(detailBitmap != null) {
+                bitmapWidth = Math.max(bitmapWidth, detailBitmap.getWidth());
+                bitmapHeight = Math.max(bitmapHeight, detailBitmap.getHeight());
+
+                detailBitmap.recycle();
+            }
+
+            detailBitmap = Bitmap.createBitmap(bitmapWidth, bitmapHeight, Bitmap.Config.ARGB_8888);
+        }
+
+        // Grow the pixel buffer if needed
+        if(detailPixels == null || detailPixels.length < width * height)
+            detailPixels = new int[width * height];
+
+        // Get the visible pixels
+        int i = 0;
+
+        for(int r = firstRow; r <= lastRow; ++r) {
+            for(int c = firstCol; c <= lastCol; ++c) {
+
+                detailPixels[i++] = detailColors[cells[r][c].getType()];
+            }
+        }
+
+        detailBitmap.setPixels(detailPixels, 0, width, 0, 0, width, height);
+
+        // Draw them, scaled to the cell size
+        srcRect.set(0, 0, width, height);
+        dstRect.set(firstCol * size - panX, firstRow * size - panY,
+                (lastCol + 1) * size - panX, (lastRow + 1) * size - panY);
+
+        canvas.drawBitmap(detailBitmap, srcRect, dstRect, detailPaint);
+    }
+
+    /**
+     * Method called when the view is touched.
+     *
+     * @param event  Touch event
+     * @return       True
+     */
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+
+        // Zoom
+        scaleDetector.onTouchEvent(event);
+
+        // Pan, if we are not zooming
+        if(!scaleDetector.isInProgress())
+            panDetector.onTouchEvent(event);
+
+        return true;
+    }
+
+    /**
+     * Listener for pinch to zoom.
+     */
+    private ScaleGestureDetector.SimpleOnScaleGestureListener scaleListener = new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+
+        /**
+         * Method called while zooming.
+         *
+         * @param detector  Detector
+         * @return          True
+         */
+        @Override
+        public boolean onScale(ScaleGestureDetector detector) {
+
+            float newScale = Math.max(getScaleMin(), Math.min(scale * detector.getScaleFactor(), SCALE_MAX));
+
+            // Zoom around the fingers
+            float fx = detector.getFocusX();
+            float fy = detector.getFocusY();
+
+            panX = (panX + fx) * newScale / scale - fx;
+            panY = (panY + fy) * newScale / scale - fy;
+
+            scale = newScale;
+
+            clampPan();
+            invalidate();
+
+            return true;
+        }
+    };
+
+    /**
+     * Listener for drag to pan.
+     */
+    private GestureDetector.SimpleOnGestureListener panListener = new GestureDetector.SimpleOnGestureListener() {
+
+        /**
+         * Method called when a gesture starts.
+         *
+         * @param e  Touch event
+         * @return   True, we want the rest of the gesture
+         */
+        @Override
+        public boolean onDown(MotionEvent e) {
+
+            return true;
+        }
+
+        /**
+         * Method called while dragging.
+         *
+         * @param e1         First touch event
+         * @param e2         Current touch event
+         * @param distanceX  Horizontal distance since the last call
+         * @param distanceY  Vertical distance since the last call
+         * @return           True
+         */
+        @Override
+        public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+
+            panX += distanceX;
+            panY += distanceY;
+
+            clampPan();
+            invalidate();
+
+            return true;
+        }
+    };
+}
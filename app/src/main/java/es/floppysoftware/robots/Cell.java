@@ -3,8 +3,6 @@
  */
 package es.floppysoftware.robots;
 
-import android.widget.ImageView;
-
 /**
  * Implements a board cell.
  *
@@ -13,7 +11,6 @@ import android.widget.ImageView;
 public class Cell {
 
     private int type;         // Contents type
-    private ImageView image;  // Related ImageView
 
     // Contents type
     static public final int CELL_GROUND = 0;
@@ -26,24 +23,12 @@ public class Cell {
     static public final int CELL_HUMAN_WIN = 7;
     static public final int CELL_ROBOT_TEMP = 8;  // Used only when moving robots
 
-    // Image resources, related to contents type in the same order
-    static private final int imageResources[] = {
-            R.drawable.cell_ground, R.drawable.cell_wall, R.drawable.cell_human,
-            R.drawable.cell_robot, R.drawable.cell_scrap, R.drawable.cell_dead,
-            R.drawable.cell_robot_win, R.drawable.cell_human_win,
-            R.drawable.cell_robot
-    };
-
     /**
      * Constructor
      *
      * @param type  Contents type
-     * @param image Related ImageView
      */
-    public Cell(int type, ImageView image) {
-
-        // Set ImageView
-        this.image = image;
+    public Cell(int type) {
 
         // Set contents type
         setType(type);
@@ -61,7 +46,8 @@ public class Cell {
     }
 
     /**
-     * Set cell contents type
+     * Set cell contents type. The board view
+     * will show it on its next redraw.
      *
      * @param type  Contents type
      */
@@ -69,8 +55,5 @@ public class Cell {
 
         // Set contents type
         this.type = type;
-
-        // Change image accordingly
-        this.image.setImageResource(imageResources[type]);
     }
 }
@@ -0,0 +1,690 @@
+/**
+ * Game.java
+ */
+package es.floppysoftware.robots;
+
+import java.util.Random;
+
+/**
+ * Implements the game rules, without any user interface.
+ *
+ * Each turn is recorded in the history, so it can be undone
+ * and redone.
+ */
+public class Game {
+
+    /**
+     * Interface for the game events.
+     */
+    public interface Listener {
+
+        /**
+         * The human is dead.
+         */
+        void onDead();
+
+        /**
+         * All robots are dead.
+         */
+        void onWin();
+
+        /**
+         * The game is over for the first time since it started.
+         * Called only once per game, even if the end is undone
+         * and reached again, so the result is saved only once.
+         *
+         * @param won  True if all robots are dead, else false
+         */
+        void onGameOver(boolean won);
+    }
+
+    // Board cells
+    private Cell[][] cells;
+    private int rows;       // # of board rows
+    private int cols;       // # of board columns
+
+    // Human
+    private int humanRow;   // Row position on board
+    private int humanCol;   // Column position on board
+
+    // Some globals
+    private int telUnits;      // Teletransporting units left
+    private int robots;        // Robots left in board
+    private int turns;         // # of turns played
+    private boolean playing;   // True if we are playing, else false
+
+    // Needed for random numbers
+    private Random random;
+
+    // Robots AI
+    private RobotStrategy robotStrategy = new GreedyRobotStrategy();
+    private int[] robotTo = new int[2];  // Robot destination position
+
+    // Undo / redo
+    private History history;
+    private int[] state = new int[History.STATE_SIZE];
+    private int undos;           // # of turns undone in this game
+    private boolean over;        // True once the game is over, even if undone
+
+    // Game events
+    private Listener listener;
+
+    /**
+     * Constructor
+     *
+     * @param random       Random numbers generator
+     * @param historySize  Max. # of turns to undo
+     */
+    public Game(Random random, int historySize) {
+
+        this.random = random;
+
+        history = new History(historySize);
+    }
+
+    /**
+     * Set the listener for the game events.
+     *
+     * @param listener  Listener, or null
+     */
+    public void setListener(Listener listener) {
+
+        this.listener = listener;
+    }
+
+    /**
+     * Set the robots AI.
+     *
+     * @param robotStrategy  Robots AI
+     */
+    public void setRobotStrategy(RobotStrategy robotStrategy) {
+
+        this.robotStrategy = robotStrategy;
+    }
+
+    /**
+     * Start playing a level. The board cells are created again
+     * only if the board size changes.
+     *
+     * @param level  Level
+     */
+    public void start(Level level) {
+
+        // Set up the board, if its size changes
+        if (cells == null || rows != level.getRows() || cols != level.getCols()) {
+
+            rows = level.getRows();
+            cols = level.getCols();
+
+            cells = new Cell[rows][cols];
+
+            for (int r = 0; r < rows; ++r) {
+                for (int c = 0; c < cols; ++c) {
+                    cells[r][c] = new Cell(Cell.CELL_GROUND);
+                }
+            }
+        }
+
+        // Set all board cells as the level
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                cells[r][c].setType(level.getType(r, c));
+            }
+        }
+
+        // Set HUMAN
+        humanRow = level.getHumanRow();
+        humanCol = level.getHumanCol();
+
+        // Reset some globals
+        robots = level.getRobots();
+        telUnits = level.getTelUnits();
+        turns = 0;
+
+        // Forget the previous game
+        history.clear();
+
+        undos = 0;
+        over = false;
+
+        // We are playing, now!!!
+        playing = true;
+    }
+
+    /**
+     * Move the human.
+     *
+     * @param shRow  Row shift: -1, 0 or 1
+     * @param shCol  Column shift: -1, 0 or 1
+     * @return       True if the human moved or attacked a robot, else false
+     */
+    public boolean move(int shRow, int shCol) {
+
+        // Do nothing if we are not playing
+        if (!playing)
+            return false;
+
+        // Calculate new position
+        int toRow = humanRow + shRow;
+        int toCol = humanCol + shCol;
+
+        // Do nothing if the new position is illegal (board outside)
+        if (toRow < 0 || toRow >= rows || toCol < 0 || toCol >= cols)
+            return false;
+
+        // Check destination cell contents
+        switch (cells[toRow][toCol].getType()) {
+
+            // Ground: Ok, move the human there
+            case Cell.CELL_GROUND :
+
+                beginTurn();
+
+                setType(humanRow, humanCol, Cell.CELL_GROUND);
+                setType(toRow, toCol, Cell.CELL_HUMAN);
+
+                humanRow = toRow;
+                humanCol = toCol;
+
+                ++turns;
+
+                actRobots();
+
+                endTurn();
+                return true;
+
+            // Robot: Kill the human
+            case Cell.CELL_ROBOT :
+
+                beginTurn();
+
+                setType(toRow, toCol, Cell.CELL_ROBOT_WIN);
+
+                ++turns;
+
+                youAreDead();
+
+                endTurn();
+                return true;
+        }
+
+        // Another: Can't move there
+        return false;
+    }
+
+    /**
+     * Teletransport the human to a random ground cell.
+     *
+     * @return  True on success, false if we are not playing,
+     *          we have not any teletransporting units, or there
+     *          is not any ground cell
+     */
+    public boolean teleport() {
+
+        // Do nothing if we are not playing
+        // or we have not any teletransporting units
+        if (!playing || telUnits == 0)
+            return false;
+
+        int r = -1;
+        int c = -1;
+
+        // Search for an empty cell (ground) in a random position,
+        // it takes a few tries unless the board is nearly full
+        for (int tries = rows * cols; tries > 0; --tries) {
+
+            int tr = random.nextInt(rows);  // Row
+            int tc = random.nextInt(cols);  // Col
+
+            if (cells[tr][tc].getType() == Cell.CELL_GROUND) {
+                r = tr;
+                c = tc;
+                break;
+            }
+        }
+
+        // Else, choose one of the empty cells
+        if (r < 0) {
+
+            int grounds = countGrounds();
+
+            // Do nothing if the board is full
+            if (grounds == 0)
+                return false;
+
+            int ground = random.nextInt(grounds);
+
+            for (int i = 0; i < rows * cols && r < 0; ++i) {
+
+                if (cells[i / cols][i % cols].getType() == Cell.CELL_GROUND && ground-- == 0) {
+                    r = i / cols;
+                    c = i % cols;
+                }
+            }
+        }
+
+        // Move the human there
+        beginTurn();
+
+        setType(humanRow, humanCol, Cell.CELL_GROUND);
+        setType(r, c, Cell.CELL_HUMAN);
+
+        humanRow = r;
+        humanCol = c;
+
+        --telUnits;
+
+        endTurn();
+
+        // Done
+        return true;
+    }
+
+    /**
+     * Count the empty cells (ground).
+     *
+     * @return  # of cells
+     */
+    private int countGrounds() {
+
+        int grounds = 0;
+
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                if (cells[r][c].getType() == Cell.CELL_GROUND)
+                    ++grounds;
+            }
+        }
+
+        return grounds;
+    }
+
+    /**
+     * Robots play
+     */
+    public void actRobots() {
+
+        // Let the AI prepare the turn
+        robotStrategy.prepare(cells, humanRow, humanCol);
+
+        // Find all the robots in the board
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+
+                // Proceed if the cell has a robot
+                if (cells[r][c].getType() == Cell.CELL_ROBOT) {
+
+                    // Calculate destination position
+                    robotStrategy.move(r, c, robotTo);
+
+                    int toRow = robotTo[0];
+                    int toCol = robotTo[1];
+
+                    // Get the destination cell contents
+                    int type = cells[toRow][toCol].getType();
+
+                    // If the destination cell is ground,
+                    // move the robot there.
+
+                    // If the destination cell is a human,
+                    // kill the human.
+
+                    // If the destination cell is a wall or
+                    // another robot, kill the robot(s).
+
+                    if (type == Cell.CELL_GROUND) {
+
+                        // Ground: Move the robot there
+                        setType(r, c, Cell.CELL_GROUND);
+                        setType(toRow, toCol, Cell.CELL_ROBOT_TEMP);
+
+                    } else if (type == Cell.CELL_HUMAN) {
+
+                        // Human: Kill the human
+                        setType(r, c, Cell.CELL_ROBOT_WIN);
+
+                        youAreDead();
+
+                        // Done
+                        return;
+
+                    } else {
+
+                        // Another: Robot is dead
+                        setType(r, c, Cell.CELL_SCRAP);
+
+                        --robots;
+
+                        // If there is another robot,
+                        // kill that robot too
+                        if (type == Cell.CELL_ROBOT || type == Cell.CELL_ROBOT_TEMP) {
+
+                            setType(toRow, toCol, Cell.CELL_SCRAP);
+
+                            --robots;
+                        }
+
+                        // Check if the human wins (no more robots)
+                        if (robots == 0) {
+
+                            youWin();
+
+                            // Done
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Persist the new locations of the robots
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+
+                // If the cell contents is a temporary robot,
+                // change it to simple robot
+                if (cells[r][c].getType() == Cell.CELL_ROBOT_TEMP)
+                    setType(r, c, Cell.CELL_ROBOT);
+            }
+        }
+    }
+
+    /**
+     * The human is dead.
+     */
+    private void youAreDead() {
+
+        // Update the HUMAN cell contents
+        setType(humanRow, humanCol, Cell.CELL_HUMAN_DEAD);
+
+        // We are NOT playing
+        playing = false;
+
+        if (listener != null)
+            listener.onDead();
+
+        gameOver(false);
+    }
+
+    /**
+     * All robots are dead.
+     */
+    private void youWin() {
+
+        // Update the HUMAN cell contents
+        setType(humanRow, humanCol, Cell.CELL_HUMAN_WIN);
+
+        // We are NOT playing
+        playing = false;
+
+        if (listener != null)
+            listener.onWin();
+
+        gameOver(true);
+    }
+
+    /**
+     * The game is over. Tell it only the first time.
+     *
+     * @param won  True if all robots are dead, else false
+     */
+    private void gameOver(boolean won) {
+
+        if (over)
+            return;
+
+        over = true;
+
+        if (listener != null)
+            listener.onGameOver(won);
+    }
+
+    /**
+     * Undo the last turn.
+     *
+     * @return  True on success, false if there is nothing to undo
+     */
+    public boolean undo() {
+
+        History.Turn turn = history.undo();
+
+        if (turn == null)
+            return false;
+
+        // Restore the cells, last change first
+        for (int i = turn.count - 1; i >= 0; --i) {
+
+            int pos = turn.getPos(i);
+
+            cells[pos / cols][pos % cols].setType(turn.getOldType(i));
+        }
+
+        loadState(turn.before);
+
+        ++undos;
+
+        return true;
+    }
+
+    /**
+     * Redo the last undone turn.
+     *
+     * @return  True on success, false if there is nothing to redo
+     */
+    public boolean redo() {
+
+        History.Turn turn = history.redo();
+
+        if (turn == null)
+            return false;
+
+        // Apply the cells, first change first
+        for (int i = 0; i < turn.count; ++i) {
+
+            int pos = turn.getPos(i);
+
+            cells[pos / cols][pos % cols].setType(turn.getNewType(i));
+        }
+
+        loadState(turn.after);
+
+        return true;
+    }
+
+    /**
+     * Check if there is a turn to undo
+     *
+     * @return  True if any, else false
+     */
+    public boolean canUndo() {
+
+        return history.canUndo();
+    }
+
+    /**
+     * Check if there is a turn to redo
+     *
+     * @return  True if any, else false
+     */
+    public boolean canRedo() {
+
+        return history.canRedo();
+    }
+
+    /**
+     * Set a cell contents type, and record the change in the history.
+     *
+     * @param row   Row position on board
+     * @param col   Column position on board
+     * @param type  Contents type
+     */
+    private void setType(int row, int col, int type) {
+
+        Cell cell = cells[row][col];
+
+        history.change(row * cols + col, cell.getType(), type);
+
+        cell.setType(type);
+    }
+
+    /**
+     * Start recording a turn in the history.
+     */
+    private void beginTurn() {
+
+        saveState(state);
+
+        history.begin(state);
+    }
+
+    /**
+     * End recording a turn in the history.
+     */
+    private void endTurn() {
+
+        saveState(state);
+
+        history.end(state);
+    }
+
+    /**
+     * Save the game values.
+     *
+     * @param state  Game values
+     */
+    private void saveState(int[] state) {
+
+        state[History.STATE_TEL_UNITS] = telUnits;
+        state[History.STATE_ROBOTS] = robots;
+        state[History.STATE_HUMAN_ROW] = humanRow;
+        state[History.STATE_HUMAN_COL] = humanCol;
+        state[History.STATE_TURNS] = turns;
+        state[History.STATE_PLAYING] = playing ? 1 : 0;
+    }
+
+    /**
+     * Restore the game values.
+     *
+     * @param state  Game values
+     */
+    private void loadState(int[] state) {
+
+        telUnits = state[History.STATE_TEL_UNITS];
+        robots = state[History.STATE_ROBOTS];
+        humanRow = state[History.STATE_HUMAN_ROW];
+        humanCol = state[History.STATE_HUMAN_COL];
+        turns = state[History.STATE_TURNS];
+        playing = state[History.STATE_PLAYING] != 0;
+    }
+
+    /**
+     * Return the board cells
+     *
+     * @return  Board cells
+     */
+    public Cell[][] getCells() {
+
+        return cells;
+    }
+
+    /**
+     * Return the # of board rows
+     *
+     * @return  # of rows
+     */
+    public int getRows() {
+
+        return rows;
+    }
+
+    /**
+     * Return the # of board columns
+     *
+     * @return  # of columns
+     */
+    public int getCols() {
+
+        return cols;
+    }
+
+    /**
+     * Return the human row position on board
+     *
+     * @return  Row
+     */
+    public int getHumanRow() {
+
+        return humanRow;
+    }
+
+    /**
+     * Return the human column position on board
+     *
+     * @return  Column
+     */
+    public int getHumanCol() {
+
+        return humanCol;
+    }
+
+    /**
+     * Return the # of teletransporting units left
+     *
+     * @return  # of units
+     */
+    public int getTelUnits() {
+
+        return telUnits;
+    }
+
+    /**
+     * Return the # of robots left in board
+     *
+     * @return  # of robots
+     */
+    public int getRobots() {
+
+        return robots;
+    }
+
+    /**
+     * Return the # of turns played
+     *
+     * @return  # of turns
+     */
+    public int getTurns() {
+
+        return turns;
+    }
+
+    /**
+     * Return the # of turns undone in this game. Redo doesn't
+     * take them back.
+     *
+     * @return  # of turns
+     */
+    public int getUndos() {
+
+        return undos;
+    }
+
+    /**
+     * Check if we are playing
+     *
+     * @return  True if we are playing, else false
+     */
+    public boolean isPlaying() {
+
+        return playing;
+    }
+
+    /**
+     * Check if the human won the game
+     *
+     * @return  True if all robots are dead, else false
+     */
+    public boolean hasWon() {
+
+        return !playing && robots == 0;
+    }
+}
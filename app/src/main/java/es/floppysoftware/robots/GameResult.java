@@ -0,0 +1,110 @@
+/**
+ * GameResult.java
+ */
+package es.floppysoftware.robots;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Implements the result of a game, as it is saved in the statistics.
+ */
+public class GameResult {
+
+    // Outcomes
+    static public final int OUTCOME_DEAD = 0;
+    static public final int OUTCOME_WIN = 1;
+
+    // Record size in bytes
+    static public final int RECORD_SIZE = 36;
+
+    public long time;       // End time, in milliseconds since the epoch
+    public long seed;       // Level seed
+    public int rows;        // # of board rows
+    public int cols;        // # of board columns
+    public int robots;      // # of robots on start
+    public int telUnits;    // # of teletransporting units on start
+    public int outcome;     // Outcome
+    public int turns;       // # of turns played
+    public int teleports;   // # of teletransporting units used
+    public int duration;    // Duration, in milliseconds
+    public int undos;       // # of turns undone
+
+    /**
+     * Check if the result can be in the leaderboard: only
+     * the games won without undoing any turn.
+     *
+     * @return  True if so, else false
+     */
+    public boolean isRanked() {
+
+        return outcome == OUTCOME_WIN && undos == 0;
+    }
+
+    /**
+     * Compare two results for the leaderboard: less turns first,
+     * then less teleports, then less time.
+     *
+     * @param other  Another result
+     * @return       True if this result is better, else false
+     */
+    public boolean isBetterThan(GameResult other) {
+
+        if (turns != other.turns)
+            return turns < other.turns;
+
+        if (teleports != other.teleports)
+            return teleports < other.teleports;
+
+        return duration < other.duration;
+    }
+
+    /**
+     * Write the result. It takes RECORD_SIZE bytes. The # of robots
+     * and undos are saved up to 65535.
+     *
+     * @param out  Output
+     * @throws IOException  On I/O errors
+     */
+    public void write(DataOutput out) throws IOException {
+
+        out.writeLong(time);
+        out.writeLong(seed);
+        out.writeShort(rows);
+        out.writeShort(cols);
+        out.writeShort(Math.min(robots, 0xFFFF));
+        out.writeByte(telUnits);
+        out.writeByte(outcome);
+        out.writeInt(turns);
+        out.writeShort(teleports);
+        out.writeInt(duration);
+        out.writeShort(Math.min(undos, 0xFFFF));
+    }
+
+    /**
+     * Read a result.
+     *
+     * @param in  Input
+     * @return    Result
+     * @throws IOException  On I/O errors
+     */
+    static public GameResult read(DataInput in) throws IOException {
+
+        GameResult result = new GameResult();
+
+        result.time = in.readLong();
+        result.seed = in.readLong();
+        result.rows = in.readUnsignedShort();
+        result.cols = in.readUnsignedShort();
+        result.robots = in.readUnsignedShort();
+        result.telUnits = in.readUnsignedByte();
+        result.outcome = in.readUnsignedByte();
+        result.turns = in.readInt();
+        result.teleports = in.readUnsignedShort();
+        result.duration = in.readInt();
+        result.undos = in.readUnsignedShort();
+
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * GreedyRobotStrategy.java
+ */
+package es.floppysoftware.robots;
+
+/**
+ * Robots AI: go straight to the human, whatever is in the way.
+ *
+ * This is the classic behaviour, and the default one.
+ */
+public class GreedyRobotStrategy implements RobotStrategy {
+
+    private int humanRow;  // Human row position on board
+    private int humanCol;  // Human column position on board
+
+    /**
+     * Method called once per turn, before moving any robot.
+     *
+     * @param cells     Board cells
+     * @param humanRow  Human row position on board
+     * @param humanCol  Human column position on board
+     */
+    @Override
+    public void prepare(Cell[][] cells, int humanRow, int humanCol) {
+
+        this.humanRow = humanRow;
+        this.humanCol = humanCol;
+    }
+
+    /**
+     * Method called for each robot, to know its destination.
+     *
+     * @param row  Robot row position on board
+     * @param col  Robot column position on board
+     * @param to   Destination position: row in [0], column in [1]
+     */
+    @Override
+    public void move(int row, int col, int[] to) {
+
+        step(row, col, humanRow, humanCol, to);
+    }
+
+    /**
+     * Calculate a step from a position to another one.
+     *
+     * @param row     From row
+     * @param col     From column
+     * @param toRow   To row
+     * @param toCol   To column
+     * @param to      Step destination: row in [0], column in [1]
+     */
+    static void step(int row, int col, int toRow, int toCol, int[] to) {
+
+        // Adjust row
+        if (row < toRow)
+            ++row;
+        else if (row > toRow)
+            --row;
+
+        // Adjust column
+        if (col < toCol)
+            ++col;
+        else if (col > toCol)
+            --col;
+
+        to[0] = row;
+        to[1] = col;
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * History.java
+ */
+package es.floppysoftware.robots;
+
+/**
+ * Implements the undo / redo history.
+ *
+ * For each turn, only the changed cells are saved, plus a few
+ * game values, so undo and redo cost depends on the # of changed
+ * cells, not on the board size. The turns are kept in a ring
+ * buffer: when it's full, the oldest turn is forgotten.
+ */
+public class History {
+
+    // Game values saved for each turn
+    static public final int STATE_TEL_UNITS = 0;  // # of teletransporting units left
+    static public final int STATE_ROBOTS = 1;     // # of robots in board
+    static public final int STATE_HUMAN_ROW = 2;  // Human row position on board
+    static public final int STATE_HUMAN_COL = 3;  // Human column position on board
+    static public final int STATE_TURNS = 4;      // # of turns played
+    static public final int STATE_PLAYING = 5;    // 1 if we are playing, else 0
+    static public final int STATE_SIZE = 6;
+
+    /**
+     * A turn: changed cells, and game values before and after it.
+     */
+    static class Turn {
+
+        // Changed cells, in order: position (row * cols + col), and old type << 4 | new type
+        int[] positions = new int[16];
+        byte[] types = new byte[16];
+        int count;
+
+        int[] before = new int[STATE_SIZE];
+        int[] after = new int[STATE_SIZE];
+
+        /**
+         * Return the position of a change
+         *
+         * @param i  Change #
+         * @return   Position on board (row * cols + col)
+         */
+        int getPos(int i) {
+
+            return positions[i];
+        }
+
+        /**
+         * Return the old type of a change
+         *
+         * @param i  Change #
+         * @return   Contents type
+         */
+        int getOldType(int i) {
+
+            return (types[i] >> 4) & 0x0F;
+        }
+
+        /**
+         * Return the new type of a change
+         *
+         * @param i  Change #
+         * @return   Contents type
+         */
+        int getNewType(int i) {
+
+            return types[i] & 0x0F;
+        }
+    }
+
+    private Turn[] turns;   // Ring buffer
+    private int first;      // Oldest turn in the buffer
+    private int size;       // # of turns that can be undone
+    private int redoSize;   // # of turns that can be redone
+    private Turn current;   // Turn being recorded, or null
+
+    /**
+     * Constructor
+     *
+     * @param capacity  Max. # of turns to keep
+     */
+    public History(int capacity) {
+
+        turns = new Turn[capacity];
+    }
+
+    /**
+     * Forget all the turns.
+     */
+    public void clear() {
+
+        first = size = redoSize = 0;
+        current = null;
+    }
+
+    /**
+     * Start recording a turn. The turns that could be
+     * redone are forgotten.
+     *
+     * @param state  Game values before the turn
+     */
+    public void begin(int[] state) {
+
+        // Nothing to record
+        if (turns.length == 0)
+            return;
+
+        redoSize = 0;
+
+        // Forget the oldest turn, if full
+        if (size == turns.length) {
+            first = (first + 1) % turns.length;
+            --size;
+        }
+
+        int i = (first + size) % turns.length;
+
+        // Reuse the old turns
+        if (turns[i] == null)
+            turns[i] = new Turn();
+
+        current = turns[i];
+        current.count = 0;
+
+        System.arraycopy(state, 0, current.before, 0, STATE_SIZE);
+    }
+
+    /**
+     * Record a cell change in the current turn.
+     *
+     * @param pos      Position on board (row * cols + col)
+     * @param oldType  Old contents type
+     * @param newType  New contents type
+     */
+    public void change(int pos, int oldType, int newType) {
+
+        if (current == null)
+            return;
+
+        // Grow if needed
+        if (current.count == current.positions.length) {
+            int[] biggerPositions = new int[current.positions.length * 2];
+            byte[] biggerTypes = new byte[current.types.length * 2];
+            System.arraycopy(current.positions, 0, biggerPositions, 0, current.count);
+            System.arraycopy(current.types, 0, biggerTypes, 0, current.count);
+            current.positions = biggerPositions;
+            current.types = biggerTypes;
+        }
+
+        // The position gets its own int, any board size fits
+        current.positions[current.count] = pos;
+        current.types[current.count++] = (byte) (oldType << 4 | newType);
+    }
+
+    /**
+     * End recording the current turn.
+     *
+     * @param state  Game values after the turn
+     */
+    public void end(int[] state) {
+
+        if (current == null)
+            return;
+
+        System.arraycopy(state, 0, current.after, 0, STATE_SIZE);
+
+        current = null;
+
+        ++size;
+    }
+
+    /**
+     * Check if there is a turn to undo
+     *
+     * @return  True if any, else false
+     */
+    public boolean canUndo() {
+
+        return size > 0;
+    }
+
+    /**
+     * Check if there is a turn to redo
+     *
+     * @return  True if any, else false
+     */
+    public boolean canRedo() {
+
+        return redoSize > 0;
+    }
+
+    /**
+     * Get the turn to undo.
+     *
+     * @return  Turn, or null if none
+     */
+    Turn undo() {
+
+        if (size == 0)
+            return null;
+
+        --size;
+        ++redoSize;
+
+        return turns[(first + size) % turns.length];
+    }
+
+    /**
+     * Get the turn to redo.
+     *
+     * @return  Turn, or null if none
+     */
+    Turn redo() {
+
+        if (redoSize == 0)
+            return null;
+
+        Turn turn = turns[(first + size) % turns.length];
+
+        ++size;
+        --redoSize;
+
+        return turn;
+    }
+}
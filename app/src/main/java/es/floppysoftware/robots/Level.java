@@ -0,0 +1,151 @@
+/**
+ * Level.java
+ */
+package es.floppysoftware.robots;
+
+/**
+ * Implements a level: the board layout to start playing.
+ */
+public class Level {
+
+    private long seed;       // Seed used to generate it
+    private int rows;        // # of board rows
+    private int cols;        // # of board columns
+    private int telUnits;    // # of teletransporting units on start
+    private int humanRow;    // Human row position on board
+    private int humanCol;    // Human column position on board
+    private byte[] cells;    // Cell contents types (row * cols + col)
+
+    /**
+     * Constructor. All cells are GROUND.
+     *
+     * @param rows      # of board rows
+     * @param cols      # of board columns
+     * @param telUnits  # of teletransporting units on start
+     */
+    public Level(int rows, int cols, int telUnits) {
+
+        this.rows = rows;
+        this.cols = cols;
+        this.telUnits = telUnits;
+
+        cells = new byte[rows * cols];
+    }
+
+    /**
+     * Return the seed used to generate the level
+     *
+     * @return  Seed
+     */
+    public long getSeed() {
+
+        return seed;
+    }
+
+    /**
+     * Set the seed used to generate the level
+     *
+     * @param seed  Seed
+     */
+    public void setSeed(long seed) {
+
+        this.seed = seed;
+    }
+
+    /**
+     * Return the # of board rows
+     *
+     * @return  # of rows
+     */
+    public int getRows() {
+
+        return rows;
+    }
+
+    /**
+     * Return the # of board columns
+     *
+     * @return  # of columns
+     */
+    public int getCols() {
+
+        return cols;
+    }
+
+    /**
+     * Return the # of teletransporting units on start
+     *
+     * @return  # of units
+     */
+    public int getTelUnits() {
+
+        return telUnits;
+    }
+
+    /**
+     * Return the human row position on board
+     *
+     * @return  Row
+     */
+    public int getHumanRow() {
+
+        return humanRow;
+    }
+
+    /**
+     * Return the human column position on board
+     *
+     * @return  Column
+     */
+    public int getHumanCol() {
+
+        return humanCol;
+    }
+
+    /**
+     * Return a cell contents type
+     *
+     * @param row  Row position on board
+     * @param col  Column position on board
+     * @return     Contents type
+     */
+    public int getType(int row, int col) {
+
+        return cells[row * cols + col];
+    }
+
+    /**
+     * Set a cell contents type. If it is the HUMAN, its
+     * position is updated too.
+     *
+     * @param row   Row position on board
+     * @param col   Column position on board
+     * @param type  Contents type
+     */
+    public void setType(int row, int col, int type) {
+
+        cells[row * cols + col] = (byte) type;
+
+        if (type == Cell.CELL_HUMAN) {
+            humanRow = row;
+            humanCol = col;
+        }
+    }
+
+    /**
+     * Return the # of robots in board
+     *
+     * @return  # of robots
+     */
+    public int getRobots() {
+
+        int robots = 0;
+
+        for (int i = 0; i < cells.length; ++i) {
+            if (cells[i] == Cell.CELL_ROBOT)
+                ++robots;
+        }
+
+        return robots;
+    }
+}
@@ -0,0 +1,345 @@
+/**
+ * LevelGenerator.java
+ */
+package es.floppysoftware.robots;
+
+import java.util.Random;
+
+/**
+ * Implements a procedural level generator.
+ *
+ * The same seed always gives the same level, so a level can be
+ * shared or replayed knowing only its seed and the generator
+ * configuration.
+ */
+public class LevelGenerator {
+
+    // Layout styles
+    static public final int STYLE_WALLS = 0;     // Some scattered walls
+    static public final int STYLE_MAZE = 1;      // A maze
+    static public final int STYLE_CLUSTERS = 2;  // Robots in groups
+    static public final int STYLES = 3;
+
+    // Default configuration
+    static public final int DEFAULT_ROWS = 9;       // # of board rows
+    static public final int DEFAULT_COLS = 9;       // # of board columns
+    static public final int DEFAULT_ROBOTS = 4;     // # of robots in board
+    static public final int DEFAULT_TEL_UNITS = 3;  // # of teletransporting units on start
+
+    // Limits, as in the level pack format
+    static public final int MAX_SIZE = 65535;      // Max. # of board rows or columns
+    static public final int MAX_TEL_UNITS = 255;   // Max. # of teletransporting units on start
+
+    static private final int MAX_TRIES = 16;  // Max. # of seeds to try for a level
+
+    // Shifts for the 4 maze directions
+    static private final int shRows[] = { -1, 0, 1, 0 };
+    static private final int shCols[] = { 0, 1, 0, -1 };
+
+    private int rows;       // # of board rows
+    private int cols;       // # of board columns
+    private int robots;     // # of robots in board
+    private int telUnits;   // # of teletransporting units on start
+
+    private Random random;  // Needed for random numbers
+
+    /**
+     * Constructor
+     *
+     * @param rows      # of board rows
+     * @param cols      # of board columns
+     * @param robots    # of robots in board
+     * @param telUnits  # of teletransporting units on start
+     * @throws IllegalArgumentException  On bad configuration
+     */
+    public LevelGenerator(int rows, int cols, int robots, int telUnits) {
+
+        if (rows < 1 || rows > MAX_SIZE || cols < 1 || cols > MAX_SIZE)
+            throw new IllegalArgumentException("Bad board size: " + rows + " x " + cols);
+
+        // The cells of a level are in an array
+        if ((long) rows * cols > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Board too big: " + rows + " x " + cols);
+
+        if (robots < 1 || robots >= (long) rows * cols)
+            throw new IllegalArgumentException("Bad # of robots: " + robots + " in a " + rows + " x " + cols + " board");
+
+        if (telUnits < 0 || telUnits > MAX_TEL_UNITS)
+            throw new IllegalArgumentException("Bad # of teletransporting units: " + telUnits);
+
+        this.rows = rows;
+        this.cols = cols;
+        this.robots = robots;
+        this.telUnits = telUnits;
+    }
+
+    /**
+     * Generate a level with a random style.
+     *
+     * @param seed  Seed
+     * @return      Level
+     * @throws IllegalStateException  If there is no room for any robot
+     */
+    public Level generate(long seed) {
+
+        return generate(seed, -1);
+    }
+
+    /**
+     * Generate a level. If no robot can be set, other seeds
+     * derived from the given one are tried. The level seed is
+     * the one that worked, so it gives the same level again.
+     *
+     * @param seed   Seed
+     * @param style  Layout style, or -1 for a random one
+     * @return       Level
+     * @throws IllegalStateException  If there is no room for any robot
+     */
+    public Level generate(long seed, int style) {
+
+        for (int i = 0; i < MAX_TRIES; ++i) {
+
+            random = new Random(seed);
+
+            Level level = build(seed, style < 0 ? random.nextInt(STYLES) : style);
+
+            if (level.getRobots() > 0)
+                return level;
+
+            // Next seed
+            seed = random.nextLong();
+        }
+
+        throw new IllegalStateException("No room for robots in a " + rows + " x " + cols + " board");
+    }
+
+    /**
+     * Build a level, once the random numbers are seeded.
+     *
+     * @param seed   Seed
+     * @param style  Layout style
+     * @return       Level
+     */
+    private Level build(long seed, int style) {
+
+        Level level = new Level(rows, cols, telUnits);
+
+        level.setSeed(seed);
+
+        // Set HUMAN in the center
+        int humanRow = rows / 2;
+        int humanCol = cols / 2;
+
+        // The board may be too small for a maze
+        if (style == STYLE_MAZE && (rows < 3 || cols < 3))
+            style = STYLE_WALLS;
+
+        // Set the WALLs
+        switch (style) {
+
+            case STYLE_MAZE :
+
+                // The maze passages are in odd positions
+                humanRow |= 1;
+                humanCol |= 1;
+
+                if (humanRow >= rows - 1)
+                    humanRow -= 2;
+                if (humanCol >= cols - 1)
+                    humanCol -= 2;
+
+                setMaze(level);
+                break;
+
+            default :
+                setWalls(level, rows * cols / 40 + 1);
+                break;
+        }
+
+        level.setType(humanRow, humanCol, Cell.CELL_HUMAN);
+
+        // Set the ROBOTs
+        if (style == STYLE_CLUSTERS)
+            setClusters(level, robots);
+        else
+            setRobots(level, robots);
+
+        // Done
+        return level;
+    }
+
+    /**
+     * Set some WALLs in GROUND random positions.
+     *
+     * @param level  Level
+     * @param walls  # of walls
+     */
+    private void setWalls(Level level, int walls) {
+
+        for (int i = 0; i < walls; ++i) {
+
+            int r = random.nextInt(level.getRows());
+            int c = random.nextInt(level.getCols());
+
+            level.setType(r, c, Cell.CELL_WALL);
+        }
+    }
+
+    /**
+     * Set a maze. It's a depth first maze, with some extra
+     * passages to avoid the dead ends.
+     *
+     * @param level  Level
+     */
+    private void setMaze(Level level) {
+
+        int rows = level.getRows();
+        int cols = level.getCols();
+
+        // Too small for a maze
+        if (rows < 3 || cols < 3)
+            return;
+
+        // Start with all WALLs
+        for (int r = 0; r < rows; ++r) {
+            for (int c = 0; c < cols; ++c) {
+                level.setType(r, c, Cell.CELL_WALL);
+            }
+        }
+
+        // Rooms are in odd positions
+        int roomRows = (rows - 1) / 2;
+        int roomCols = (cols - 1) / 2;
+
+        boolean[] visited = new boolean[roomRows * roomCols];
+        int[] stack = new int[roomRows * roomCols];
+        int[] dirs = new int[4];
+        int top = 0;
+
+        visited[0] = true;
+        stack[top++] = 0;
+        level.setType(1, 1, Cell.CELL_GROUND);
+
+        while (top > 0) {
+
+            int room = stack[top - 1];
+            int rr = room / roomCols;
+            int rc = room % roomCols;
+
+            // Find the not visited neighbours
+            int n = 0;
+
+            for (int d = 0; d < 4; ++d) {
+
+                int nr = rr + shRows[d];
+                int nc = rc + shCols[d];
+
+                if (nr >= 0 && nr < roomRows && nc >= 0 && nc < roomCols && !visited[nr * roomCols + nc])
+                    dirs[n++] = d;
+            }
+
+            // Back, if there are not any
+            if (n == 0) {
+                --top;
+                continue;
+            }
+
+            // Go to a random one, opening the wall between them
+            int d = dirs[random.nextInt(n)];
+            int nr = rr + shRows[d];
+            int nc = rc + shCols[d];
+
+            level.setType(2 * rr + 1 + shRows[d], 2 * rc + 1 + shCols[d], Cell.CELL_GROUND);
+            level.setType(2 * nr + 1, 2 * nc + 1, Cell.CELL_GROUND);
+
+            visited[nr * roomCols + nc] = true;
+            stack[top++] = nr * roomCols + nc;
+        }
+
+        // Open some extra passages
+        int extra = roomRows * roomCols / 4;
+
+        for (int i = 0; i < extra; ++i) {
+
+            int r = 1 + random.nextInt(rows - 2);
+            int c = 1 + random.nextInt(cols - 2);
+
+            level.setType(r, c, Cell.CELL_GROUND);
+        }
+    }
+
+    /**
+     * Set some ROBOTs in GROUND random positions, not
+     * next to the human.
+     *
+     * @param level   Level
+     * @param robots  # of robots
+     */
+    private void setRobots(Level level, int robots) {
+
+        int rows = level.getRows();
+        int cols = level.getCols();
+
+        // Give up after some tries, the board may be full
+        for (int tries = rows * cols * 4; robots > 0 && tries > 0; --tries) {
+
+            int r = random.nextInt(rows);
+            int c = random.nextInt(cols);
+
+            if (isFree(level, r, c)) {
+                level.setType(r, c, Cell.CELL_ROBOT);
+                --robots;
+            }
+        }
+    }
+
+    /**
+     * Set some ROBOTs in groups, around GROUND random positions.
+     *
+     * @param level   Level
+     * @param robots  # of robots
+     */
+    private void setClusters(Level level, int robots) {
+
+        int rows = level.getRows();
+        int cols = level.getCols();
+
+        // Give up after some tries, the board may be full
+        for (int tries = rows * cols * 4; robots > 0 && tries > 0; --tries) {
+
+            // Group center
+            int r = random.nextInt(rows);
+            int c = random.nextInt(cols);
+
+            // Group size
+            int size = Math.min(robots, 2 + random.nextInt(3));
+
+            for (int i = 0; i < size * 4 && size > 0; ++i) {
+
+                int gr = r + random.nextInt(5) - 2;
+                int gc = c + random.nextInt(5) - 2;
+
+                if (gr >= 0 && gr < rows && gc >= 0 && gc < cols && isFree(level, gr, gc)) {
+                    level.setType(gr, gc, Cell.CELL_ROBOT);
+                    --robots;
+                    --size;
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if a ROBOT can be set in a position: it must
+     * be GROUND and not next to the human.
+     *
+     * @param level  Level
+     * @param row    Row position on board
+     * @param col    Column position on board
+     * @return       True if free, else false
+     */
+    private boolean isFree(Level level, int row, int col) {
+
+        return level.getType(row, col) == Cell.CELL_GROUND
+                && (Math.abs(row - level.getHumanRow()) > 1 || Math.abs(col - level.getHumanCol()) > 1);
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * LevelPack.java
+ */
+package es.floppysoftware.robots;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Implements a level pack reader.
+ *
+ * The levels are read on demand, so the pack size doesn't
+ * matter: opening it reads only the header.
+ *
+ * Pack format (big endian):
+ *
+ *   Header:  magic (int), version (int), # of levels (int), index offset (int)
+ *   Levels:  seed (long), rows (short), cols (short), teletransporting units (byte),
+ *            cells (4 bits each, row by row, high nibble first)
+ *   Index:   level offset (int), for each level
+ */
+public class LevelPack {
+
+    static public final int MAGIC = 0x52424C50;   // "RBLP"
+    static public final int VERSION = 1;
+
+    static public final int HEADER_SIZE = 16;
+    static public final int LEVEL_HEADER_SIZE = 13;
+
+    private RandomAccessFile file;  // Pack file
+    private int count;              // # of levels
+    private long indexOffset;       // Index position in file
+
+    private byte[] buffer = new byte[Math.max(HEADER_SIZE, LEVEL_HEADER_SIZE)];  // Buffer for reads
+
+    /**
+     * Constructor. It opens the pack.
+     *
+     * @param path  Pack file
+     * @throws IOException  On I/O errors, or if it is not a valid pack
+     *                      or its index is out of the file
+     */
+    public LevelPack(File path) throws IOException {
+
+        file = new RandomAccessFile(path, "r");
+
+        try {
+            // Read the header
+            file.readFully(buffer, 0, HEADER_SIZE);
+
+            if (getInt(0) != MAGIC || getInt(4) != VERSION)
+                throw new IOException("Not a level pack: " + path);
+
+            count = getInt(8);
+            indexOffset = getInt(12) & 0xFFFFFFFFL;
+
+            // The index must be in the file
+            if (count < 0 || indexOffset < HEADER_SIZE || indexOffset + 4L * count > file.length())
+                throw new IOException("Bad index in level pack: " + path);
+
+        } catch (IOException e) {
+
+            file.close();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Return the # of levels in the pack
+     *
+     * @return  # of levels
+     */
+    public int getCount() {
+
+        return count;
+    }
+
+    /**
+     * Read a level.
+     *
+     * @param index  Level index, from 0
+     * @return       Level
+     * @throws IOException  On I/O errors, or if the level is not valid
+     */
+    public Level read(int index) throws IOException {
+
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Level " + index + " of " + count);
+
+        // Find the level in the index
+        file.seek(indexOffset + 4L * index);
+        file.readFully(buffer, 0, 4);
+
+        // Read the level header
+        file.seek(getInt(0) & 0xFFFFFFFFL);
+        file.readFully(buffer, 0, LEVEL_HEADER_SIZE);
+
+        long seed = ((long) getInt(0) << 32) | (getInt(4) & 0xFFFFFFFFL);
+        int rows = getShort(8);
+        int cols = getShort(10);
+        int telUnits = buffer[12] & 0xFF;
+
+        // Check the size, the cells must be in the file
+        long packedSize = ((long) rows * cols + 1) / 2;
+
+        if (rows == 0 || cols == 0 || (long) rows * cols > Integer.MAX_VALUE
+                || packedSize > file.length() - file.getFilePointer())
+            throw new IOException("Bad size in level " + index + ": " + rows + " x " + cols);
+
+        Level level = new Level(rows, cols, telUnits);
+
+        level.setSeed(seed);
+
+        // Read the cells
+        byte[] packed = new byte[(int) packedSize];
+
+        file.readFully(packed);
+
+        int humans = 0;
+        int robots = 0;
+
+        for (int i = 0; i < rows * cols; ++i) {
+
+            int type = (i & 1) == 0 ? (packed[i / 2] >> 4) & 0x0F : packed[i / 2] & 0x0F;
+
+            // Only the types of a level start are valid
+            switch (type) {
+
+                case Cell.CELL_GROUND :
+                case Cell.CELL_WALL :
+                case Cell.CELL_SCRAP :
+                    break;
+
+                case Cell.CELL_HUMAN :
+                    ++humans;
+                    break;
+
+                case Cell.CELL_ROBOT :
+                    ++robots;
+                    break;
+
+                default :
+                    throw new IOException("Bad cell in level " + index + ": " + type);
+            }
+
+            level.setType(i / cols, i % cols, type);
+        }
+
+        // There must be a human, and something to win
+        if (humans != 1)
+            throw new IOException("Bad # of humans in level " + index + ": " + humans);
+
+        if (robots == 0)
+            throw new IOException("No robots in level " + index);
+
+        // Done
+        return level;
+    }
+
+    /**
+     * Close the pack.
+     *
+     * @throws IOException  On I/O errors
+     */
+    public void close() throws IOException {
+
+        file.close();
+    }
+
+    /**
+     * Get an int from the buffer.
+     *
+     * @param pos  Position in buffer
+     * @return     Value
+     */
+    private int getInt(int pos) {
+
+        return (buffer[pos] & 0xFF) << 24 | (buffer[pos + 1] & 0xFF) << 16
+                | (buffer[pos + 2] & 0xFF) << 8 | (buffer[pos + 3] & 0xFF);
+    }
+
+    /**
+     * Get an unsigned short from the buffer.
+     *
+     * @param pos  Position in buffer
+     * @return     Value
+     */
+    private int getShort(int pos) {
+
+        return (buffer[pos] & 0xFF) << 8 | (buffer[pos + 1] & 0xFF);
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * LevelPackTool.java
+ */
+package es.floppysoftware.robots;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Command line tool to build level packs.
+ *
+ * Usage: LevelPackTool pack levels seed [rows cols robots telUnits]
+ *
+ * Level # n is generated with seed + n, so any level of
+ * the pack can be generated again knowing only the first seed.
+ */
+public class LevelPackTool {
+
+    /**
+     * Entry point.
+     *
+     * @param args  Arguments
+     */
+    public static void main(String[] args) {
+
+        if (args.length != 3 && args.length != 7) {
+            System.err.println("Usage: LevelPackTool pack levels seed [rows cols robots telUnits]");
+            System.exit(1);
+        }
+
+        try {
+            File path = new File(args[0]);
+            int levels = Integer.parseInt(args[1]);
+            long seed = Long.parseLong(args[2]);
+
+            if (levels < 0)
+                throw new IllegalArgumentException("Bad # of levels: " + levels);
+
+            // Board configuration, same as the game by default
+            int rows = LevelGenerator.DEFAULT_ROWS;
+            int cols = LevelGenerator.DEFAULT_COLS;
+            int robots = LevelGenerator.DEFAULT_ROBOTS;
+            int telUnits = LevelGenerator.DEFAULT_TEL_UNITS;
+
+            if (args.length == 7) {
+                rows = Integer.parseInt(args[3]);
+                cols = Integer.parseInt(args[4]);
+                robots = Integer.parseInt(args[5]);
+                telUnits = Integer.parseInt(args[6]);
+            }
+
+            LevelGenerator generator = new LevelGenerator(rows, cols, robots, telUnits);
+            LevelPackWriter writer = new LevelPackWriter(path);
+
+            boolean done = false;
+
+            try {
+                for (int i = 0; i < levels; ++i)
+                    writer.add(generator.generate(seed + i));
+
+                writer.close();
+
+                done = true;
+            } finally {
+
+                // Don't leave a partial pack
+                if (!done)
+                    writer.discard();
+            }
+
+            System.out.println(levels + " levels written to " + path);
+
+        } catch (NumberFormatException e) {
+            System.err.println("Bad number: " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("I/O error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * LevelPackWriter.java
+ */
+package es.floppysoftware.robots;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Implements a level pack writer. See LevelPack for the format.
+ *
+ * The levels are written as they are added, so a pack can be
+ * as big as needed.
+ */
+public class LevelPackWriter {
+
+    private File path;             // Pack file
+    private DataOutputStream out;  // Output stream
+    private long offset;           // Position in file
+    private int[] index;           // Level offsets
+    private int count;             // # of levels
+
+    /**
+     * Constructor. It creates the pack.
+     *
+     * @param path  Pack file
+     * @throws IOException  On I/O errors
+     */
+    public LevelPackWriter(File path) throws IOException {
+
+        this.path = path;
+
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 65536));
+
+        index = new int[1024];
+
+        // Write the header, we don't know yet the # of levels
+        writeHeader(out, 0, 0);
+
+        offset = LevelPack.HEADER_SIZE;
+    }
+
+    /**
+     * Add a level.
+     *
+     * @param level  Level
+     * @throws IOException  On I/O errors, or if the pack would be too big
+     * @throws IllegalArgumentException  If the level has no robots
+     */
+    public void add(Level level) throws IOException {
+
+        int rows = level.getRows();
+        int cols = level.getCols();
+
+        // It could never be won
+        if (level.getRobots() == 0)
+            throw new IllegalArgumentException("Level without robots");
+
+        long size = (long) rows * cols;
+
+        // Offsets are 32 bits, the index goes where the level ends
+        long end = offset + LevelPack.LEVEL_HEADER_SIZE + (size + 1) / 2;
+
+        if (end > 0xFFFFFFFFL)
+            throw new IOException("Level pack too big");
+
+        // Update the index
+        if (count == index.length) {
+            int[] bigger = new int[index.length * 2];
+            System.arraycopy(index, 0, bigger, 0, count);
+            index = bigger;
+        }
+
+        index[count++] = (int) offset;
+
+        // Write the level header
+        out.writeLong(level.getSeed());
+        out.writeShort(rows);
+        out.writeShort(cols);
+        out.writeByte(level.getTelUnits());
+
+        // Write the cells, two per byte
+        for (long i = 0; i < size; i += 2) {
+
+            int high = level.getType((int) (i / cols), (int) (i % cols));
+            int low = i + 1 < size ? level.getType((int) ((i + 1) / cols), (int) ((i + 1) % cols)) : 0;
+
+            out.writeByte(high << 4 | low);
+        }
+
+        offset = end;
+    }
+
+    /**
+     * Return the # of levels added
+     *
+     * @return  # of levels
+     */
+    public int getCount() {
+
+        return count;
+    }
+
+    /**
+     * Close the pack. It writes the index, and updates the header.
+     *
+     * @throws IOException  On I/O errors, or if the pack is too big
+     */
+    public void close() throws IOException {
+
+        // The index offset must fit in the header
+        if (offset > 0xFFFFFFFFL) {
+            out.close();
+            throw new IOException("Level pack too big");
+        }
+
+        // Write the index
+        for (int i = 0; i < count; ++i)
+            out.writeInt(index[i]);
+
+        out.close();
+
+        // Update the header
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+
+        try {
+            writeHeader(file, count, (int) offset);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Discard the pack, on errors. It closes and deletes the file,
+     * ignoring any I/O error.
+     */
+    public void discard() {
+
+        try {
+            out.close();
+        } catch (IOException e) {
+            // Nothing to do
+        }
+
+        path.delete();
+    }
+
+    /**
+     * Write the pack header.
+     *
+     * @param out          Output
+     * @param count        # of levels
+     * @param indexOffset  Index position in file
+     * @throws IOException  On I/O errors
+     */
+    private void writeHeader(DataOutput out, int count, int indexOffset) throws IOException {
+
+        out.writeInt(LevelPack.MAGIC);
+        out.writeInt(LevelPack.VERSION);
+        out.writeInt(count);
+        out.writeInt(indexOffset);
+    }
+}
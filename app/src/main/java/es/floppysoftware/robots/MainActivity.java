@@ -19,21 +19,23 @@ package es.floppysoftware.robots;
 
 import android.app.AlertDialog;
 import android.content.DialogInterface;
+import android.content.SharedPreferences;
 import android.media.AudioManager;
 import android.media.SoundPool;
 import android.support.v7.app.ActionBarActivity;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.View.OnClickListener;
 import android.widget.Button;
-import android.widget.ImageView;
-import android.widget.TableLayout;
-import android.widget.TableRow;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -49,39 +51,40 @@ import java.util.Random;
  */
 public class MainActivity extends ActionBarActivity {
 
-    static private final int BOARD_ROWS = 9;  // # of board rows
-    static private final int BOARD_COLS = 9;  // # of board columns
+    static private final String LEVEL_PACK = "levels.pak";  // Level pack file name
 
-    static private final int ROBOTS = 4;      // # of robots in board
+    static private final String PREF_LEVEL_INDEX = "levelIndex";  // Preference for the level # in the pack
 
-    static private final int TEL_UNITS = 3;   // # of teletransporting units on start
+    static private final int HISTORY_SIZE = 100;  // Max. # of turns to undo
 
-    // Board layout
-    private TableLayout boardLayout;  //
-    private TableRow[] boardRowLayout = new TableRow[BOARD_ROWS]; //
+    // Board view
+    private BoardView boardView;
 
-    // Board cells
-    private Cell[][] boardCells = new Cell[BOARD_ROWS][BOARD_COLS];
-
-    // Human
-    private int human_row;  // Row position on board
-    private int human_col;  // Column position on board
+    // Levels
+    private LevelGenerator levelGenerator = new LevelGenerator(LevelGenerator.DEFAULT_ROWS,
+            LevelGenerator.DEFAULT_COLS, LevelGenerator.DEFAULT_ROBOTS, LevelGenerator.DEFAULT_TEL_UNITS);
+    private LevelPack levelPack;  // Level pack, if any
+    private int levelIndex;       // Level # in the pack
+    private Level level;          // Current level
+    private boolean smartRobots;  // True if the robots find their way, else false
 
     // Needed for random numbers
     private Random myRandom = new Random();
 
+    // Game rules
+    private Game game = new Game(myRandom, HISTORY_SIZE);
+
     // Declare Buttons
     private Button btnUpLeft, btnUp, btnUpRight, btnLeft, btnRight,
             btnDownLeft, btnDown, btnDownRight,
-            btnTel, btnReset;
+            btnTel, btnReset, btnUndo, btnRedo;
 
     // Declare TextViews
     private TextView tvTitle;
 
-    // Some globals
-    private int telUnits;      // Teletransporting units left
-    private int robots;        // Robots left in board
-    private boolean playing;   // True if we are playing, else false
+    // Statistics
+    private StatsStore statsStore;
+    private long startTime;    // Game start time, in milliseconds since boot
 
     // Sound
     private SoundPool soundPool;
@@ -104,8 +107,8 @@ public class MainActivity extends ActionBarActivity {
         // Set layout
         setContentView(R.layout.activity_main);
 
-        // Link to board layout
-        boardLayout = (TableLayout) findViewById(R.id.tableLayout);
+        // Link to board view
+        boardView = (BoardView) findViewById(R.id.boardView);
 
         // Link to text views
         tvTitle = (TextView) findViewById(R.id.textViewTitle);
@@ -124,6 +127,9 @@ public class MainActivity extends ActionBarActivity {
 
         btnReset = (Button) findViewById(R.id.btnReset);
 
+        btnUndo = (Button) findViewById(R.id.btnUndo);
+        btnRedo = (Button) findViewById(R.id.btnRedo);
+
         // OnClick listener for buttons
         btnUpLeft.setOnClickListener(onClickListenerForArrows);
         btnUp.setOnClickListener(onClickListenerForArrows);
@@ -138,6 +144,12 @@ public class MainActivity extends ActionBarActivity {
 
         btnReset.setOnClickListener(onClickListenerForReset);
 
+        btnUndo.setOnClickListener(onClickListenerForUndo);
+        btnRedo.setOnClickListener(onClickListenerForRedo);
+
+        // Game events
+        game.setListener(gameListener);
+
         // Setup the sound
         soundPool = new SoundPool(1, AudioManager.STREAM_MUSIC, 0);
         soundGameOver = soundPool.load(this, R.raw.game_over, 1);
@@ -145,13 +157,40 @@ public class MainActivity extends ActionBarActivity {
         soundTel = soundPool.load(this, R.raw.teletr, 1);
         soundReset = soundPool.load(this, R.raw.reset, 1);
 
-        // Setup the board
-        setUpBoard();
+        // Open the statistics
+        statsStore = StatsStore.getInstance(getFilesDir());
+
+        // Open the level pack, if any
+        openLevelPack();
+
+        // Go on with the pack where we left it
+        levelIndex = getPreferences(MODE_PRIVATE).getInt(PREF_LEVEL_INDEX, 0);
 
         // Clear board to start playing
         clearBoard();
     }
 
+    /**
+     * Method called when the App ends.
+     */
+    @Override
+    protected void onDestroy() {
+
+        // Close the level pack, if any
+        if (levelPack != null) {
+
+            try {
+                levelPack.close();
+            } catch (IOException e) {
+                // Nothing to do
+            }
+
+            levelPack = null;
+        }
+
+        super.onDestroy();
+    }
+
     /**
      * Method called when constructing the action bar menu.
      *
@@ -188,6 +227,18 @@ public class MainActivity extends ActionBarActivity {
                 Toast.makeText(this, R.string.msg_not_implemented, Toast.LENGTH_SHORT).show();
                 return true;
 
+            // Smart robots
+            case R.id.action_smart_robots :
+                item.setChecked(!item.isChecked());
+                smartRobots = item.isChecked();
+                game.setRobotStrategy(smartRobots ? new PathRobotStrategy() : new GreedyRobotStrategy());
+                return true;
+
+            // Statistics
+            case R.id.action_stats :
+                dialogStats();
+                return true;
+
             // About of Robots
             case R.id.action_about :
                 dialogAbout();
@@ -199,97 +250,100 @@ public class MainActivity extends ActionBarActivity {
     }
 
     /**
-     * Set up the board for the first time.
+     * Open the level pack, if there is one in the App external
+     * files directory. Its levels are read on demand.
      */
-    public void setUpBoard() {
-
-        // Link board to cells and layout
-        for(int r = 0; r < BOARD_ROWS; ++r) {
+    private void openLevelPack() {
 
-            // For each row, we link the TableRow
-            TableRow tr = new TableRow(this);
-            boardRowLayout[r] = tr;
+        File dir = getExternalFilesDir(null);
 
-            // For each row, we link each column
-            for(int c = 0; c < BOARD_COLS; ++c) {
+        if (dir == null)
+            return;
 
-                // Create ImageView
-                ImageView iv = new ImageView(this);
+        File file = new File(dir, LEVEL_PACK);
 
-                // Assign the image resource to GROUND (it's useless because
-                // when we create the Cell later, it will be do the same again, and
-                // when we will call clearBoard() too!!!)
-                iv.setImageResource(R.drawable.cell_ground);
+        if (!file.exists())
+            return;
 
-                // Add ImageView to TableRow
-                tr.addView(iv);
+        try {
+            levelPack = new LevelPack(file);
 
-                // Link board cell to a new Cell object
-                boardCells[r][c] = new Cell(Cell.CELL_GROUND, iv);
+            // An empty pack is useless
+            if (levelPack.getCount() == 0) {
+                levelPack.close();
+                levelPack = null;
             }
 
-            // Add the TableRow to the TableLayout
-            boardLayout.addView(tr);
+        } catch (IOException e) {
+
+            Toast.makeText(this, R.string.msg_bad_level_pack, Toast.LENGTH_SHORT).show();
+
+            levelPack = null;
         }
     }
 
     /**
-     * Clear the board. It resets the board to start playing (again).
+     * Get the level to play: from the level pack, if any,
+     * else a new generated one.
+     *
+     * @return  Level
      */
-    public void clearBoard() {
+    private Level loadLevel() {
 
-        // Set all board cells as GROUND
-        for(int r = 0; r < BOARD_ROWS; ++r) {
-            for (int c = 0; c < BOARD_COLS; ++c) {
+        if (levelPack != null) {
 
-                // Set this cell as GROUND
-                boardCells[r][c].setType(Cell.CELL_GROUND);
+            try {
+                return levelPack.read(levelIndex % levelPack.getCount());
+            } catch (IOException e) {
+                Toast.makeText(this, R.string.msg_bad_level_pack, Toast.LENGTH_SHORT).show();
             }
         }
 
-        // Set some WALLs
-        boardCells[2][2].setType(Cell.CELL_WALL);
+        // Greedy robots walk into the maze walls, so the mazes
+        // are only for smart robots
+        if (smartRobots)
+            return levelGenerator.generate(myRandom.nextLong());
 
-        // Set HUMAN
-        human_row = BOARD_ROWS / 2;
-        human_col = BOARD_COLS / 2;
+        int style = myRandom.nextBoolean() ? LevelGenerator.STYLE_WALLS : LevelGenerator.STYLE_CLUSTERS;
 
-        boardCells[human_row][human_col].setType(Cell.CELL_HUMAN);
+        return levelGenerator.generate(myRandom.nextLong(), style);
+    }
 
-        // Set some ROBOTs
-        for(int i = 0; i < ROBOTS; ++i) {
+    /**
+     * Clear the board. It resets the board to start playing (again).
+     */
+    public void clearBoard() {
 
-            // Set a ROBOT in a GROUND random position
-            while(true) {
+        // Next level, if we won the previous one
+        if (level != null && game.hasWon()) {
 
-                int r = myRandom.nextInt(BOARD_ROWS);  // Row
-                int c = myRandom.nextInt(BOARD_COLS);  // Column
+            ++levelIndex;
 
-                // Put the robot there if the position is empty (ground)
-                if (boardCells[r][c].getType() == Cell.CELL_GROUND) {
+            // Remember it for the next time
+            SharedPreferences.Editor editor = getPreferences(MODE_PRIVATE).edit();
+            editor.putInt(PREF_LEVEL_INDEX, levelIndex);
+            editor.apply();
+        }
 
-                    // Put the robot there.
-                    boardCells[r][c].setType(Cell.CELL_ROBOT);
+        // Get the level
+        level = loadLevel();
 
-                    // Next, please
-                    break;
-                }
-            }
-        }
+        // Start playing it
+        game.start(level);
+
+        // Show the board, it may be a new one
+        boardView.setBoard(game.getCells());
 
-        // Reset some globals
-        robots = ROBOTS;       // # of robots in board
-        telUnits = TEL_UNITS;  // # of teletransporting units left
+        startTime = SystemClock.elapsedRealtime();
 
         // Update some things on screen
         updateTelUnits();                    // # of teletransporting units left
+        updateHistory();                     // Undo / redo buttons
         tvTitle.setText(R.string.app_name);  // App title
+        boardView.follow(game.getHumanRow(), game.getHumanCol());  // Board
 
         // Play the song
         soundPool.play(soundReset, 1.0f, 1.0f, 0, 0, 1.0f);
-
-        // We are playing, now!!!
-        playing = true;
     }
 
     /**
@@ -305,10 +359,6 @@ public class MainActivity extends ActionBarActivity {
         @Override
         public void onClick(View view) {
 
-            // Do nothing if we are not playing
-            if(playing == false)
-                return;
-
             // Shifts for row and column
             int sh_row, sh_col;
 
@@ -355,43 +405,16 @@ public class MainActivity extends ActionBarActivity {
                     break;
             }
 
-            // Calculate new position
-            int to_row = human_row + sh_row;
-            int to_col = human_col + sh_col;
-
-            // Do things if the new position is legal (board inside)
-            if (to_row >= 0 && to_row < BOARD_ROWS && to_col >= 0 && to_col < BOARD_COLS) {
-
-                // Involved cells
-                Cell from_cell = boardCells[human_row][human_col];  // Human cell
-                Cell to_cell = boardCells[to_row][to_col];          // Destination cell
-
-                // Check destination cell contents
-                switch(to_cell.getType()) {
-
-                    // Ground: Ok, move the human there
-                    case Cell.CELL_GROUND :
-
-                        // Play the song
-                        soundPool.play(soundMove, 1.0f, 1.0f, 0, 0, 1.0f);
+            // Move the human, if the new position is legal
+            if (game.move(sh_row, sh_col)) {
 
-                        from_cell.setType(Cell.CELL_GROUND);
-                        to_cell.setType(Cell.CELL_HUMAN);
+                // Play the song, if the game goes on
+                if (game.isPlaying())
+                    soundPool.play(soundMove, 1.0f, 1.0f, 0, 0, 1.0f);
 
-                        human_row = to_row;
-                        human_col = to_col;
-
-                        actRobots();
-                        break;
-
-                    // Robot: Kill the human
-                    case Cell.CELL_ROBOT :
-
-                        to_cell.setType(Cell.CELL_ROBOT_WIN);
-
-                        youAreDead();
-                        break;
-                }
+                // Show the changes
+                updateHistory();
+                boardView.follow(game.getHumanRow(), game.getHumanCol());
             }
         }
     };
@@ -409,38 +432,17 @@ public class MainActivity extends ActionBarActivity {
         @Override
         public void onClick(View view) {
 
-            // Do nothing if we are not playing
-            // or we have not any teletransporting units
-            if (playing == false || telUnits == 0)
-                return;
-
-            // Search for an empty cell (ground) in a random position
-            while (true) {
-
-                // Get a random position
-                int r = myRandom.nextInt(BOARD_ROWS);  // Row
-                int c = myRandom.nextInt(BOARD_COLS);  // Col
-
-                // Move the human there, if it is a ground cell
-                if (boardCells[r][c].getType() == Cell.CELL_GROUND) {
-
-                    // Play the song
-                    soundPool.play(soundTel, 1.0f, 1.0f, 0, 0, 1.0f);
-
-                    boardCells[human_row][human_col].setType(Cell.CELL_GROUND);
+            // Teletransport the human, if we can
+            if (game.teleport()) {
 
-                    boardCells[r][c].setType(Cell.CELL_HUMAN);
+                // Play the song
+                soundPool.play(soundTel, 1.0f, 1.0f, 0, 0, 1.0f);
 
-                    human_row = r;
-                    human_col = c;
+                updateTelUnits();
 
-                    --telUnits;
-
-                    updateTelUnits();
-
-                    // Done
-                    break;
-                }
+                // Show the changes
+                updateHistory();
+                boardView.follow(game.getHumanRow(), game.getHumanCol());
             }
         }
     };
@@ -464,109 +466,107 @@ public class MainActivity extends ActionBarActivity {
     };
 
     /**
-     * Robots play
+     * Listener for undo button
      */
-    public void actRobots() {
-
-        // Find all the robots in the board
-        for(int r = 0; r < BOARD_ROWS; ++r) {
-            for (int c = 0; c < BOARD_COLS; ++c) {
-
-                // Get this cell
-                Cell cell = boardCells[r][c];
-
-                // Proceed if the cell has a robot
-                if (cell.getType() == Cell.CELL_ROBOT) {
-
-                    // Calculate destination position
-                    int to_row = r;
-                    int to_col = c;
-
-                    // Adjust row
-                    if (r < human_row)
-                        ++to_row;
-                    else if (r > human_row)
-                        --to_row;
-
-                    // Adjust column
-                    if (c < human_col)
-                        ++to_col;
-                    else if (c > human_col)
-                        --to_col;
+    OnClickListener onClickListenerForUndo = new OnClickListener() {
 
-                    // Get the destination cell
-                    Cell toCell = boardCells[to_row][to_col];
-
-                    // Get the destination cell contents
-                    int type = toCell.getType();
-
-                    // If the destination cell is ground,
-                    // move the robot there.
-
-                    // If the destination cell is a human,
-                    // kill the human.
-
-                    // If the destination cell is a wall or
-                    // another robot, kill the robot(s).
+        /**
+         * Method called when the button is clicked.
+         *
+         * @param view   Related view (Button)
+         */
+        @Override
+        public void onClick(View view) {
 
-                    if (type == Cell.CELL_GROUND) {
+            // Undo the last turn
+            if (game.undo())
+                showHistoryChanges();
+        }
+    };
 
-                        // Ground: Move the robot there
-                        cell.setType(Cell.CELL_GROUND);
-                        toCell.setType(Cell.CELL_ROBOT_TEMP);
+    /**
+     * Listener for redo button
+     */
+    OnClickListener onClickListenerForRedo = new OnClickListener() {
 
-                    } else if(type == Cell.CELL_HUMAN) {
+        /**
+         * Method called when the button is clicked.
+         *
+         * @param view   Related view (Button)
+         */
+        @Override
+        public void onClick(View view) {
 
-                        // Human: Kill the human
-                        cell.setType(Cell.CELL_ROBOT_WIN);
+            // Redo the last undone turn
+            if (game.redo())
+                showHistoryChanges();
+        }
+    };
 
-                        youAreDead();
+    /**
+     * Listener for the game events
+     */
+    Game.Listener gameListener = new Game.Listener() {
 
-                        // Done
-                        return;
+        /**
+         * Method called when the human is dead.
+         */
+        @Override
+        public void onDead() {
 
-                    } else {
+            youAreDead();
+        }
 
-                        // Another: Robot is dead
-                        cell.setType(Cell.CELL_SCRAP);
+        /**
+         * Method called when all robots are dead.
+         */
+        @Override
+        public void onWin() {
 
-                        --robots;
+            youWin();
+        }
 
-                        // If there is another robot,
-                        // kill that robot too
-                        if (type == Cell.CELL_ROBOT || type == Cell.CELL_ROBOT_TEMP) {
+        /**
+         * Method called once per game, when it is over.
+         *
+         * @param won  True if all robots are dead, else false
+         */
+        @Override
+        public void onGameOver(boolean won) {
 
-                            toCell.setType(Cell.CELL_SCRAP);
+            saveResult(won ? GameResult.OUTCOME_WIN : GameResult.OUTCOME_DEAD);
+        }
+    };
 
-                            --robots;
-                        }
+    /**
+     * Show the changes after an undo or a redo.
+     */
+    private void showHistoryChanges() {
 
-                        // Check if the human wins (no more robots)
-                        if(robots == 0) {
+        // Play the song
+        soundPool.play(soundMove, 1.0f, 1.0f, 0, 0, 1.0f);
 
-                            youWin();
+        // Update some things on screen
+        updateTelUnits();
+        updateHistory();
 
-                            // Done
-                            return;
-                        }
-                    }
-                }
-            }
-        }
+        if (game.isPlaying())
+            tvTitle.setText(R.string.app_name);
+        else if (game.hasWon())
+            tvTitle.setText(R.string.title_you_win);
+        else
+            tvTitle.setText(R.string.title_you_are_dead);
 
-        // Persist the new locations of the robots
-        for(int r = 0; r < BOARD_ROWS; ++r) {
-            for (int c = 0; c < BOARD_COLS; ++c) {
+        boardView.follow(game.getHumanRow(), game.getHumanCol());
+    }
 
-                // Get this cell
-                Cell cell = boardCells[r][c];
+    /**
+     * Enable or disable the undo / redo buttons.
+     */
+    public void updateHistory() {
 
-                // If the cell contents is a temporary robot,
-                // change it to simple robot
-                if (cell.getType() == Cell.CELL_ROBOT_TEMP)
-                    cell.setType(Cell.CELL_ROBOT);
-            }
-        }
+        btnUndo.setEnabled(game.canUndo());
+        btnRedo.setEnabled(game.canRedo());
     }
 
     /**
@@ -575,7 +575,7 @@ public class MainActivity extends ActionBarActivity {
     public void updateTelUnits() {
 
         // Change the text in the teletransporting button
-        btnTel.setText("" + telUnits);
+        btnTel.setText("" + game.getTelUnits());
     }
 
     /**
@@ -583,17 +583,11 @@ public class MainActivity extends ActionBarActivity {
      */
     public void youAreDead() {
 
-        // Update the HUMAN cell contents
-        boardCells[human_row][human_col].setType(Cell.CELL_HUMAN_DEAD);
-
         // Set the App title
         tvTitle.setText(R.string.title_you_are_dead);
 
         // Play the song
         soundPool.play(soundGameOver, 1.0f, 1.0f, 0, 0, 1.0f);
-
-        // We are NOT playing
-        playing = false;
     }
 
     /**
@@ -601,17 +595,75 @@ public class MainActivity extends ActionBarActivity {
      */
     public void youWin() {
 
-        // Update the HUMAN cell contents
-        boardCells[human_row][human_col].setType(Cell.CELL_HUMAN_WIN);
-
         // Set the App title
         tvTitle.setText(R.string.title_you_win);
 
         // Play the song
         soundPool.play(soundGameOver, 1.0f, 1.0f, 0, 0, 1.0f);
+    }
+
+    /**
+     * Save the game result in the statistics.
+     *
+     * @param outcome  Outcome
+     */
+    private void saveResult(int outcome) {
+
+        GameResult result = new GameResult();
+
+        result.time = System.currentTimeMillis();
+        result.seed = level.getSeed();
+        result.rows = level.getRows();
+        result.cols = level.getCols();
+        result.robots = level.getRobots();
+        result.telUnits = level.getTelUnits();
+        result.outcome = outcome;
+        result.turns = game.getTurns();
+        result.teleports = level.getTelUnits() - game.getTelUnits();
+        result.undos = game.getUndos();
+        result.duration = (int) (SystemClock.elapsedRealtime() - startTime);
+
+        statsStore.add(result);
+    }
 
-        // We are NOT playing
-        playing = false;
+    /**
+     * Statistics dialog
+     */
+    private void dialogStats() {
+
+        long games = statsStore.getGames();
+
+        // Build the text: aggregates first
+        StringBuilder text = new StringBuilder();
+
+        text.append(getResources().getString(R.string.stats_text,
+                games,
+                statsStore.getWins(),
+                games > 0 ? statsStore.getTotalTurns() / (float) games : 0.0f,
+                games > 0 ? statsStore.getTotalTeleports() / (float) games : 0.0f,
+                statsStore.getTotalDuration() / 60000));
+
+        // Then the leaderboard
+        List<GameResult> leaderboard = statsStore.getLeaderboard();
+
+        for (int i = 0; i < leaderboard.size(); ++i) {
+
+            GameResult result = leaderboard.get(i);
+
+            text.append(getResources().getString(R.string.stats_best,
+                    i + 1, result.turns, result.teleports, result.duration / 1000));
+        }
+
+        // Create the dialog
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+
+        // Build the dialog
+        builder.setTitle(getResources().getString(R.string.stats_title))
+            .setMessage(text)
+            .setPositiveButton(getResources().getString(R.string.btn_ok), null);
+
+        // Show the dialog
+        builder.create().show();
     }
 
     /**
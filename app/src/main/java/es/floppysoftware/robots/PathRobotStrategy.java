@@ -0,0 +1,136 @@
+/**
+ * PathRobotStrategy.java
+ */
+package es.floppysoftware.robots;
+
+import java.util.Arrays;
+
+/**
+ * Robots AI: go to the human around the walls and scrap.
+ *
+ * A distance field from the human is calculated once per turn,
+ * with a breadth first search, and shared by all the robots. So,
+ * the cost per turn depends on the board size, not on the number
+ * of robots.
+ *
+ * The robots which can't reach the human go straight to it,
+ * like the greedy ones.
+ */
+public class PathRobotStrategy implements RobotStrategy {
+
+    static private final int UNREACHABLE = Integer.MAX_VALUE;
+
+    // Shifts for the 8 neighbours
+    static private final int shRows[] = { -1, -1, -1,  0, 0,  1, 1, 1 };
+    static private final int shCols[] = { -1,  0,  1, -1, 1, -1, 0, 1 };
+
+    private int rows;        // # of board rows
+    private int cols;        // # of board columns
+
+    private int humanRow;    // Human row position on board
+    private int humanCol;    // Human column position on board
+
+    private int[] distance;  // Distance to the human, for each cell (row * cols + col)
+    private int[] queue;     // Queue for the search
+
+    /**
+     * Method called once per turn, before moving any robot.
+     * It calculates the distance field.
+     *
+     * @param cells     Board cells
+     * @param humanRow  Human row position on board
+     * @param humanCol  Human column position on board
+     */
+    @Override
+    public void prepare(Cell[][] cells, int humanRow, int humanCol) {
+
+        this.humanRow = humanRow;
+        this.humanCol = humanCol;
+
+        rows = cells.length;
+        cols = cells[0].length;
+
+        // Reuse the arrays, unless the board size changes
+        if (distance == null || distance.length != rows * cols) {
+            distance = new int[rows * cols];
+            queue = new int[rows * cols];
+        }
+
+        Arrays.fill(distance, UNREACHABLE);
+
+        // Start from the human
+        int head = 0;
+        int tail = 0;
+
+        distance[humanRow * cols + humanCol] = 0;
+        queue[tail++] = humanRow * cols + humanCol;
+
+        while (head < tail) {
+
+            int pos = queue[head++];
+            int r = pos / cols;
+            int c = pos % cols;
+
+            // Visit the neighbours
+            for (int i = 0; i < shRows.length; ++i) {
+
+                int nr = r + shRows[i];
+                int nc = c + shCols[i];
+
+                // Skip the cells out of the board
+                if (nr < 0 || nr >= rows || nc < 0 || nc >= cols)
+                    continue;
+
+                int npos = nr * cols + nc;
+
+                // Skip the visited cells
+                if (distance[npos] != UNREACHABLE)
+                    continue;
+
+                // Skip the obstacles. The robots are not obstacles,
+                // because they are moving too.
+                int type = cells[nr][nc].getType();
+
+                if (type == Cell.CELL_WALL || type == Cell.CELL_SCRAP)
+                    continue;
+
+                distance[npos] = distance[pos] + 1;
+                queue[tail++] = npos;
+            }
+        }
+    }
+
+    /**
+     * Method called for each robot, to know its destination.
+     *
+     * @param row  Robot row position on board
+     * @param col  Robot column position on board
+     * @param to   Destination position: row in [0], column in [1]
+     */
+    @Override
+    public void move(int row, int col, int[] to) {
+
+        // The greedy step is the default, and the preferred one on ties
+        GreedyRobotStrategy.step(row, col, humanRow, humanCol, to);
+
+        int best = distance[to[0] * cols + to[1]];
+
+        // Search a nearer neighbour
+        for (int i = 0; i < shRows.length; ++i) {
+
+            int nr = row + shRows[i];
+            int nc = col + shCols[i];
+
+            if (nr < 0 || nr >= rows || nc < 0 || nc >= cols)
+                continue;
+
+            int d = distance[nr * cols + nc];
+
+            if (d < best) {
+                best = d;
+                to[0] = nr;
+                to[1] = nc;
+            }
+        }
+    }
+}
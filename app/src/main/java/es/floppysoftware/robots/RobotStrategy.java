@@ -0,0 +1,30 @@
+/**
+ * RobotStrategy.java
+ */
+package es.floppysoftware.robots;
+
+/**
+ * Interface for the robots AI. It decides where each robot
+ * goes on its turn.
+ */
+public interface RobotStrategy {
+
+    /**
+     * Method called once per turn, before moving any robot.
+     *
+     * @param cells     Board cells
+     * @param humanRow  Human row position on board
+     * @param humanCol  Human column position on board
+     */
+    void prepare(Cell[][] cells, int humanRow, int humanCol);
+
+    /**
+     * Method called for each robot, to know its destination.
+     * It must be an adjacent cell, inside the board.
+     *
+     * @param row  Robot row position on board
+     * @param col  Robot column position on board
+     * @param to   Destination position: row in [0], column in [1]
+     */
+    void move(int row, int col, int[] to);
+}
@@ -0,0 +1,494 @@
+/**
+ * StatsStore.java
+ */
+package es.floppysoftware.robots;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Implements the statistics store.
+ *
+ * The game results are appended to a record file, and never
+ * rewritten. The record file starts with a header, so a file
+ * in another format is never misread: it's set aside, and a new
+ * one is started. The aggregates and the leaderboard are kept in
+ * memory, and saved in a small index file after each game, so
+ * they are ready on start without reading the record file.
+ * The index is rebuilt from the record file only if it is
+ * missing or out of date.
+ *
+ * All the file work is done in a background thread. There is
+ * only one store per process, so two stores never work on the
+ * same files at the same time (ie: while an Activity is being
+ * created again after a configuration change).
+ */
+public class StatsStore {
+
+    static public final int LEADERBOARD_SIZE = 10;  // # of results in the leaderboard
+
+    static private final String RECORDS_FILE = "stats.dat";  // Record file name
+    static private final String RECORDS_OLD = "stats.old";   // Record file name, when set aside
+    static private final String INDEX_FILE = "stats.idx";    // Index file name
+
+    static private final int RECORDS_MAGIC = 0x52425344;  // "RBSD"
+    static private final int RECORDS_VERSION = 1;
+    static private final int RECORDS_HEADER_SIZE = 8;
+
+    static private final int INDEX_MAGIC = 0x52425358;  // "RBSX"
+    static private final int INDEX_VERSION = 3;
+
+    static private StatsStore instance;  // The only store
+
+    private File recordsFile;  // Record file
+    private File recordsOld;   // Record file, when set aside
+    private File indexFile;    // Index file
+
+    private DataOutputStream out;  // Record file output, open while appending
+
+    private ExecutorService worker = Executors.newSingleThreadExecutor();
+
+    // Aggregates
+    private long games;          // # of games
+    private long wins;           // # of games won
+    private long totalTurns;     // # of turns in all games
+    private long totalTeleports; // # of teletransporting units used in all games
+    private long totalDuration;  // Duration of all games, in milliseconds
+
+    // Leaderboard, best first
+    private ArrayList<GameResult> leaderboard = new ArrayList<GameResult>();
+
+    /**
+     * Return the store, creating it the first time.
+     *
+     * @param dir  Directory for the files
+     * @return     Store
+     */
+    static public synchronized StatsStore getInstance(File dir) {
+
+        if (instance == null)
+            instance = new StatsStore(dir);
+
+        return instance;
+    }
+
+    /**
+     * Constructor. It loads the index in background.
+     *
+     * @param dir  Directory for the files
+     */
+    private StatsStore(File dir) {
+
+        recordsFile = new File(dir, RECORDS_FILE);
+        recordsOld = new File(dir, RECORDS_OLD);
+        indexFile = new File(dir, INDEX_FILE);
+
+        worker.execute(new Runnable() {
+
+            @Override
+            public void run() {
+
+                load();
+            }
+        });
+    }
+
+    /**
+     * Add a game result. It is saved in background.
+     *
+     * @param result  Result
+     */
+    public void add(final GameResult result) {
+
+        worker.execute(new Runnable() {
+
+            @Override
+            public void run() {
+
+                append(result);
+            }
+        });
+    }
+
+    /**
+     * Return the # of games
+     *
+     * @return  # of games
+     */
+    public synchronized long getGames() {
+
+        return games;
+    }
+
+    /**
+     * Return the # of games won
+     *
+     * @return  # of games won
+     */
+    public synchronized long getWins() {
+
+        return wins;
+    }
+
+    /**
+     * Return the # of turns in all games
+     *
+     * @return  # of turns
+     */
+    public synchronized long getTotalTurns() {
+
+        return totalTurns;
+    }
+
+    /**
+     * Return the # of teletransporting units used in all games
+     *
+     * @return  # of units
+     */
+    public synchronized long getTotalTeleports() {
+
+        return totalTeleports;
+    }
+
+    /**
+     * Return the duration of all games
+     *
+     * @return  Duration, in milliseconds
+     */
+    public synchronized long getTotalDuration() {
+
+        return totalDuration;
+    }
+
+    /**
+     * Return the leaderboard: the best games won without undo, best first.
+     *
+     * @return  A copy of the leaderboard
+     */
+    public synchronized List<GameResult> getLeaderboard() {
+
+        return new ArrayList<GameResult>(leaderboard);
+    }
+
+    /**
+     * Update the aggregates and the leaderboard with a result.
+     *
+     * @param result  Result
+     */
+    private synchronized void index(GameResult result) {
+
+        ++games;
+
+        totalTurns += result.turns;
+        totalTeleports += result.teleports;
+        totalDuration += result.duration;
+
+        if (result.outcome != GameResult.OUTCOME_WIN)
+            return;
+
+        ++wins;
+
+        // Games with undo are not ranked
+        if (!result.isRanked())
+            return;
+
+        // Find its place in the leaderboard
+        int i = leaderboard.size();
+
+        while (i > 0 && result.isBetterThan(leaderboard.get(i - 1)))
+            --i;
+
+        if (i < LEADERBOARD_SIZE) {
+
+            leaderboard.add(i, result);
+
+            if (leaderboard.size() > LEADERBOARD_SIZE)
+                leaderboard.remove(LEADERBOARD_SIZE);
+        }
+    }
+
+    /**
+     * Clear the aggregates and the leaderboard.
+     */
+    private synchronized void clearIndex() {
+
+        games = wins = totalTurns = totalTeleports = totalDuration = 0;
+
+        leaderboard.clear();
+    }
+
+    /**
+     * Load the index. Background thread only.
+     */
+    private void load() {
+
+        // Set aside a record file in another format
+        checkRecords();
+
+        // Drop any partial record, from a crash while appending
+        long records = trimRecords();
+
+        // Read the index, if it's up to date
+        if (readIndex(records))
+            return;
+
+        // Else, rebuild it from the record file
+        clearIndex();
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(recordsFile), 65536));
+
+            try {
+                in.skipBytes(RECORDS_HEADER_SIZE);
+
+                for (long i = 0; i < records; ++i)
+                    index(GameResult.read(in));
+            } finally {
+                in.close();
+            }
+
+            writeIndex();
+
+        } catch (IOException e) {
+
+            // We'll try again on next start
+            clearIndex();
+        }
+    }
+
+    /**
+     * Check the record file header. If the file is in another
+     * format, it's renamed (an older one is lost), so the results
+     * start again in a new file. Background thread only.
+     */
+    private void checkRecords() {
+
+        long length = recordsFile.length();
+
+        // Missing or empty, a new one will be started
+        if (length == 0)
+            return;
+
+        boolean valid = false;
+
+        if (length >= RECORDS_HEADER_SIZE) {
+
+            try {
+                DataInputStream in = new DataInputStream(new FileInputStream(recordsFile));
+
+                try {
+                    valid = in.readInt() == RECORDS_MAGIC && in.readInt() == RECORDS_VERSION;
+                } finally {
+                    in.close();
+                }
+
+            } catch (IOException e) {
+
+                // We'll try again on next start
+                return;
+            }
+        }
+
+        if (!valid) {
+
+            recordsOld.delete();
+
+            if (!recordsFile.renameTo(recordsOld))
+                recordsFile.delete();
+        }
+    }
+
+    /**
+     * Return the # of records in the record file.
+     *
+     * @return  # of records
+     */
+    private long countRecords() {
+
+        return Math.max(0, recordsFile.length() - RECORDS_HEADER_SIZE) / GameResult.RECORD_SIZE;
+    }
+
+    /**
+     * Truncate the record file to a whole # of records.
+     * Background thread only.
+     *
+     * @return  # of records
+     */
+    private long trimRecords() {
+
+        long length = recordsFile.length();
+        long records = countRecords();
+
+        if (length > 0 && length != RECORDS_HEADER_SIZE + records * GameResult.RECORD_SIZE) {
+
+            try {
+                RandomAccessFile file = new RandomAccessFile(recordsFile, "rw");
+
+                try {
+                    file.setLength(RECORDS_HEADER_SIZE + records * GameResult.RECORD_SIZE);
+                } finally {
+                    file.close();
+                }
+
+            } catch (IOException e) {
+                // Nothing to do, the index will not match
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Append a result to the record file, and update the index.
+     * Background thread only.
+     *
+     * @param result  Result
+     */
+    private void append(GameResult result) {
+
+        try {
+            if (out == null) {
+
+                boolean empty = recordsFile.length() == 0;
+
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(recordsFile, true)));
+
+                // A new file, write its header
+                if (empty) {
+                    out.writeInt(RECORDS_MAGIC);
+                    out.writeInt(RECORDS_VERSION);
+                }
+            }
+
+            result.write(out);
+            out.flush();
+
+        } catch (IOException e) {
+
+            // Lost, but keep it for this session
+            closeRecords();
+
+            index(result);
+
+            return;
+        }
+
+        index(result);
+
+        writeIndex();
+    }
+
+    /**
+     * Close the record file. Background thread only.
+     */
+    private void closeRecords() {
+
+        if (out != null) {
+
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Nothing to do
+            }
+
+            out = null;
+        }
+    }
+
+    /**
+     * Read the index file. Background thread only.
+     *
+     * @param records  # of records in the record file
+     * @return         True on success, false if missing or out of date
+     */
+    private boolean readIndex(long records) {
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+
+            try {
+                if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION || in.readLong() != records)
+                    return false;
+
+                synchronized (this) {
+
+                    games = in.readLong();
+                    wins = in.readLong();
+                    totalTurns = in.readLong();
+                    totalTeleports = in.readLong();
+                    totalDuration = in.readLong();
+
+                    leaderboard.clear();
+
+                    for (int i = in.readInt(); i > 0; --i)
+                        leaderboard.add(GameResult.read(in));
+                }
+
+                return true;
+
+            } finally {
+                in.close();
+            }
+
+        } catch (IOException e) {
+
+            return false;
+        }
+    }
+
+    /**
+     * Write the index file. It's written to a temporary
+     * file first, so it is never left half written.
+     * Background thread only.
+     */
+    private void writeIndex() {
+
+        File tmp = new File(indexFile.getPath() + ".tmp");
+
+        try {
+            DataOutputStream idx = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+
+            try {
+                idx.writeInt(INDEX_MAGIC);
+                idx.writeInt(INDEX_VERSION);
+                idx.writeLong(countRecords());
+
+                synchronized (this) {
+
+                    idx.writeLong(games);
+                    idx.writeLong(wins);
+                    idx.writeLong(totalTurns);
+                    idx.writeLong(totalTeleports);
+                    idx.writeLong(totalDuration);
+
+                    idx.writeInt(leaderboard.size());
+
+                    for (GameResult result : leaderboard)
+                        result.write(idx);
+                }
+
+            } finally {
+                idx.close();
+            }
+
+            if (!tmp.renameTo(indexFile))
+                tmp.delete();
+
+        } catch (IOException e) {
+
+            // It will be rebuilt on next start
+            tmp.delete();
+        }
+    }
+}
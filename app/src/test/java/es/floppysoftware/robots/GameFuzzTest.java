@@ -0,0 +1,76 @@
+/**
+ * GameFuzzTest.java
+ */
+package es.floppysoftware.robots;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Game rules fuzzing: a lot of random turns, with cheap checks
+ * after each one.
+ *
+ * The # of turns can be changed with the robots.fuzz.turns
+ * system property.
+ */
+public class GameFuzzTest {
+
+    static private final int TURNS = Integer.getInteger("robots.fuzz.turns", 1000000);
+    static private final long SEED = Long.getLong("robots.fuzz.seed", 1L);
+
+    static private final int MAX_TRIES = 1000;   // Max. # of illegal actions in a row
+
+    @Test
+    public void randomTurns() {
+
+        Random random = new Random(SEED);
+
+        LevelGenerator generator = new LevelGenerator(LevelGenerator.DEFAULT_ROWS, LevelGenerator.DEFAULT_COLS,
+                LevelGenerator.DEFAULT_ROBOTS, LevelGenerator.DEFAULT_TEL_UNITS);
+
+        Game game = new Game(random, 100);
+
+        int games = 0;
+        int tries = 0;
+        int occupied = 0;
+
+        for (int turn = 0; turn < TURNS; ) {
+
+            // New game, if over or stuck
+            if (!game.isPlaying() || tries == MAX_TRIES) {
+
+                game.setRobotStrategy((games & 1) == 0 ? new GreedyRobotStrategy() : new PathRobotStrategy());
+                game.start(generator.generate(random.nextLong()));
+
+                occupied = GameHarness.occupied(game);
+                tries = 0;
+                ++games;
+            }
+
+            int robots = game.getRobots();
+
+            if (GameHarness.randomTurn(game, random)) {
+
+                String message = "game " + games + ", turn " + turn;
+
+                assertTrue(message, game.getRobots() <= robots);
+                assertEquals(message, occupied, GameHarness.occupied(game));
+
+                // Undo now and then
+                if (random.nextInt(32) == 0)
+                    assertTrue(message, game.undo());
+
+                ++turn;
+                tries = 0;
+
+            } else {
+
+                ++tries;
+            }
+        }
+    }
+}
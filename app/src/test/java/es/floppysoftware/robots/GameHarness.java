@@ -0,0 +1,148 @@
+/**
+ * GameHarness.java
+ */
+package es.floppysoftware.robots;
+
+import java.util.Random;
+
+/**
+ * Headless harness for the game rules: builds boards from text,
+ * plays random turns, and checks the board contents.
+ *
+ * Board text, a string for each row:
+ *
+ *   .  Ground    #  Wall    H  Human    R  Robot    *  Scrap
+ *
+ * and, once the game is over or while the robots move:
+ *
+ *   x  Dead human    X  Winning robot    +  Winning human    r  Robot being moved
+ */
+public class GameHarness {
+
+    // Board text characters, related to contents type in the same order
+    static private final String CHARS = ".#HR*xX+r";
+
+    /**
+     * Build a level from text.
+     *
+     * @param telUnits  # of teletransporting units on start
+     * @param rows      Board text
+     * @return          Level
+     */
+    static public Level level(int telUnits, String... rows) {
+
+        Level level = new Level(rows.length, rows[0].length(), telUnits);
+
+        for (int r = 0; r < rows.length; ++r) {
+            for (int c = 0; c < rows[r].length(); ++c) {
+                level.setType(r, c, CHARS.indexOf(rows[r].charAt(c)));
+            }
+        }
+
+        return level;
+    }
+
+    /**
+     * Start a game from text.
+     *
+     * @param seed      Seed for the teletransports
+     * @param telUnits  # of teletransporting units on start
+     * @param rows      Board text
+     * @return          Game
+     */
+    static public Game game(long seed, int telUnits, String... rows) {
+
+        Game game = new Game(new Random(seed), 16);
+
+        game.start(level(telUnits, rows));
+
+        return game;
+    }
+
+    /**
+     * Return the board as text, a line for each row.
+     *
+     * @param game  Game
+     * @return      Board text
+     */
+    static public String board(Game game) {
+
+        StringBuilder text = new StringBuilder();
+
+        for (Cell[] row : game.getCells()) {
+
+            for (Cell cell : row)
+                text.append(CHARS.charAt(cell.getType()));
+
+            text.append('\n');
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Return the board and the game values, to compare two moments of a game.
+     *
+     * @param game  Game
+     * @return      Snapshot
+     */
+    static public String snapshot(Game game) {
+
+        return board(game) + game.getHumanRow() + "," + game.getHumanCol() + " tel=" + game.getTelUnits()
+                + " robots=" + game.getRobots() + " turns=" + game.getTurns() + " playing=" + game.isPlaying();
+    }
+
+    /**
+     * Return the # of cells of a contents type.
+     *
+     * @param game  Game
+     * @param type  Contents type
+     * @return      # of cells
+     */
+    static public int count(Game game, int type) {
+
+        int n = 0;
+
+        for (Cell[] row : game.getCells()) {
+            for (Cell cell : row) {
+                if (cell.getType() == type)
+                    ++n;
+            }
+        }
+
+        return n;
+    }
+
+    /**
+     * Return the # of cells which are not ground.
+     *
+     * @param game  Game
+     * @return      # of cells
+     */
+    static public int occupied(Game game) {
+
+        return game.getRows() * game.getCols() - count(game, Cell.CELL_GROUND);
+    }
+
+    /**
+     * Play a random turn: a teletransport now and then, else a move.
+     *
+     * @param game    Game
+     * @param random  Random numbers generator
+     * @return        True if a turn was played, false if the action was illegal
+     */
+    static public boolean randomTurn(Game game, Random random) {
+
+        if (random.nextInt(16) == 0 && game.teleport())
+            return true;
+
+        int shRow = random.nextInt(3) - 1;
+        int shCol = random.nextInt(3) - 1;
+
+        // Standing still is not a move
+        if (shRow == 0 && shCol == 0)
+            return false;
+
+        return game.move(shRow, shCol);
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ * GamePropertiesTest.java
+ */
+package es.floppysoftware.robots;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Game rules properties, checked after each turn of many random
+ * games: random levels, random sizes, random moves, and both
+ * robots AI. A failure message shows the game seed, so it can
+ * be played again.
+ */
+public class GamePropertiesTest {
+
+    static private final int GAMES = 2000;       // # of games for each property test
+    static private final int MAX_TURNS = 200;    // Max. # of turns for each game
+    static private final int MAX_TRIES = 1000;   // Max. # of illegal actions in a row
+
+    /**
+     * Checks made after each turn.
+     */
+    private interface Check {
+
+        /**
+         * Method called before each turn.
+         *
+         * @param game  Game
+         */
+        void before(Game game);
+
+        /**
+         * Method called after each turn.
+         *
+         * @param game     Game
+         * @param message  Message for failures
+         */
+        void after(Game game, String message);
+    }
+
+    /**
+     * Play random games, and check each turn.
+     *
+     * @param check  Checks
+     */
+    private void play(Check check) {
+
+        for (int n = 0; n < GAMES; ++n) {
+
+            Random random = new Random(n);
+
+            // Random level
+            int rows = 4 + random.nextInt(20);
+            int cols = 4 + random.nextInt(20);
+            int robots = 1 + random.nextInt(rows * cols / 8 + 1);
+
+            LevelGenerator generator = new LevelGenerator(rows, cols, robots, random.nextInt(4));
+
+            Game game = new Game(random, 8);
+
+            game.start(generator.generate(n));
+
+            // Random robots AI
+            if (random.nextBoolean())
+                game.setRobotStrategy(new PathRobotStrategy());
+
+            // Play
+            for (int turn = 0, tries = 0; turn < MAX_TURNS && tries < MAX_TRIES && game.isPlaying(); ++tries) {
+
+                check.before(game);
+
+                if (GameHarness.randomTurn(game, random)) {
+
+                    check.after(game, "game " + n + ", turn " + turn);
+
+                    ++turn;
+                    tries = 0;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void robotCountNeverRises() {
+
+        play(new Check() {
+
+            int robots;
+
+            @Override
+            public void before(Game game) {
+
+                robots = game.getRobots();
+            }
+
+            @Override
+            public void after(Game game, String message) {
+
+                assertTrue(message, game.getRobots() <= robots);
+            }
+        });
+    }
+
+    @Test
+    public void robotCountMatchesBoard() {
+
+        play(new Check() {
+
+            @Override
+            public void before(Game game) {
+            }
+
+            @Override
+            public void after(Game game, String message) {
+
+                // On game over, the robots may not be persisted
+                int robots = GameHarness.count(game, Cell.CELL_ROBOT)
+                        + GameHarness.count(game, Cell.CELL_ROBOT_TEMP)
+                        + GameHarness.count(game, Cell.CELL_ROBOT_WIN);
+
+                assertEquals(message, robots, game.getRobots());
+            }
+        });
+    }
+
+    @Test
+    public void scrapAndWallsNeverMove() {
+
+        play(new Check() {
+
+            boolean[] fixed;
+
+            @Override
+            public void before(Game game) {
+
+                Cell[][] cells = game.getCells();
+
+                fixed = new boolean[game.getRows() * game.getCols()];
+
+                for (int r = 0; r < game.getRows(); ++r) {
+                    for (int c = 0; c < game.getCols(); ++c) {
+
+                        int type = cells[r][c].getType();
+
+                        fixed[r * game.getCols() + c] = type == Cell.CELL_SCRAP || type == Cell.CELL_WALL;
+                    }
+                }
+            }
+
+            @Override
+            public void after(Game game, String message) {
+
+                Cell[][] cells = game.getCells();
+
+                int before = 0;
+                int after = GameHarness.count(game, Cell.CELL_WALL) + GameHarness.count(game, Cell.CELL_SCRAP);
+
+                for (int r = 0; r < game.getRows(); ++r) {
+                    for (int c = 0; c < game.getCols(); ++c) {
+
+                        if (fixed[r * game.getCols() + c]) {
+
+                            int type = cells[r][c].getType();
+
+                            assertTrue(message, type == Cell.CELL_SCRAP || type == Cell.CELL_WALL);
+
+                            ++before;
+                        }
+                    }
+                }
+
+                // New scrap only, never less
+                assertTrue(message, after >= before);
+            }
+        });
+    }
+
+    @Test
+    public void occupiedCellsAreConserved() {
+
+        play(new Check() {
+
+            int occupied;
+
+            @Override
+            public void before(Game game) {
+
+                occupied = GameHarness.occupied(game);
+            }
+
+            @Override
+            public void after(Game game, String message) {
+
+                assertEquals(message, occupied, GameHarness.occupied(game));
+            }
+        });
+    }
+
+    @Test
+    public void humanIsWhereTheGameSays() {
+
+        play(new Check() {
+
+            @Override
+            public void before(Game game) {
+            }
+
+            @Override
+            public void after(Game game, String message) {
+
+                int type = game.getCells()[game.getHumanRow()][game.getHumanCol()].getType();
+
+                if (game.isPlaying())
+                    assertEquals(message, Cell.CELL_HUMAN, type);
+                else if (game.hasWon())
+                    assertEquals(message, Cell.CELL_HUMAN_WIN, type);
+                else
+                    assertEquals(message, Cell.CELL_HUMAN_DEAD, type);
+            }
+        });
+    }
+
+    @Test
+    public void undoRestoresTheTurnAndRedoReplaysIt() {
+
+        play(new Check() {
+
+            String before;
+
+            @Override
+            public void before(Game game) {
+
+                before = GameHarness.snapshot(game);
+            }
+
+            @Override
+            public void after(Game game, String message) {
+
+                String after = GameHarness.snapshot(game);
+
+                assertTrue(message, game.undo());
+                assertEquals(message, before, GameHarness.snapshot(game));
+
+                assertTrue(message, game.redo());
+                assertEquals(message, after, GameHarness.snapshot(game));
+            }
+        });
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * GameResultTest.java
+ */
+package es.floppysoftware.robots;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Game results, as saved in the statistics.
+ */
+public class GameResultTest {
+
+    @Test
+    public void onlyWinsWithoutUndoAreRanked() {
+
+        GameResult result = new GameResult();
+
+        result.outcome = GameResult.OUTCOME_WIN;
+        assertTrue(result.isRanked());
+
+        result.undos = 1;
+        assertFalse(result.isRanked());
+
+        result.undos = 0;
+        result.outcome = GameResult.OUTCOME_DEAD;
+        assertFalse(result.isRanked());
+    }
+
+    @Test
+    public void bigCountsAreClamped() throws IOException {
+
+        GameResult result = new GameResult();
+
+        result.robots = 70000;
+        result.undos = 100000;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        result.write(new DataOutputStream(bytes));
+
+        GameResult read = GameResult.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(0xFFFF, read.robots);
+        assertEquals(0xFFFF, read.undos);
+    }
+
+    @Test
+    public void recordKeepsAllValues() throws IOException {
+
+        GameResult result = new GameResult();
+
+        result.time = 1234567890123L;
+        result.seed = -42;
+        result.rows = 300;
+        result.cols = 9;
+        result.robots = 20;
+        result.telUnits = 3;
+        result.outcome = GameResult.OUTCOME_WIN;
+        result.turns = 77;
+        result.teleports = 2;
+        result.duration = 65000;
+        result.undos = 5;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        result.write(new DataOutputStream(bytes));
+
+        assertEquals(GameResult.RECORD_SIZE, bytes.size());
+
+        GameResult read = GameResult.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(result.time, read.time);
+        assertEquals(result.seed, read.seed);
+        assertEquals(result.rows, read.rows);
+        assertEquals(result.cols, read.cols);
+        assertEquals(result.robots, read.robots);
+        assertEquals(result.telUnits, read.telUnits);
+        assertEquals(result.outcome, read.outcome);
+        assertEquals(result.turns, read.turns);
+        assertEquals(result.teleports, read.teleports);
+        assertEquals(result.duration, read.duration);
+        assertEquals(result.undos, read.undos);
+    }
+}
@@ -0,0 +1,352 @@
+/**
+ * GameTest.java
+ */
+package es.floppysoftware.robots;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Game rules, case by case.
+ */
+public class GameTest {
+
+    @Test
+    public void humanMovesToGround() {
+
+        Game game = GameHarness.game(1, 0,
+                ".....",
+                ".H...",
+                ".....",
+                ".....",
+                "....R");
+
+        assertTrue(game.move(0, 1));
+
+        assertEquals(".....\n" +
+                     "..H..\n" +
+                     ".....\n" +
+                     "...R.\n" +
+                     ".....\n", GameHarness.board(game));
+
+        assertEquals(1, game.getTurns());
+        assertTrue(game.isPlaying());
+    }
+
+    @Test
+    public void humanCantLeaveTheBoard() {
+
+        Game game = GameHarness.game(1, 0,
+                "H..",
+                "...",
+                "..R");
+
+        assertFalse(game.move(-1, 0));
+        assertFalse(game.move(0, -1));
+
+        assertEquals(0, game.getTurns());
+        assertEquals("H..\n...\n..R\n", GameHarness.board(game));
+    }
+
+    @Test
+    public void humanCantMoveToWallOrScrap() {
+
+        Game game = GameHarness.game(1, 0,
+                "#H*",
+                "...",
+                "R..");
+
+        assertFalse(game.move(0, -1));
+        assertFalse(game.move(0, 1));
+
+        assertEquals(0, game.getTurns());
+    }
+
+    @Test
+    public void humanMovingToRobotDies() {
+
+        Game game = GameHarness.game(1, 0,
+                "HR.",
+                "...",
+                "...");
+
+        assertTrue(game.move(0, 1));
+
+        assertEquals("xX.\n...\n...\n", GameHarness.board(game));
+        assertFalse(game.isPlaying());
+        assertFalse(game.hasWon());
+    }
+
+    @Test
+    public void robotReachingHumanKillsIt() {
+
+        Game game = GameHarness.game(1, 0,
+                "....",
+                "H...",
+                "..R.");
+
+        assertTrue(game.move(0, 1));
+
+        assertEquals("....\n.x..\n..X.\n", GameHarness.board(game));
+        assertFalse(game.isPlaying());
+    }
+
+    @Test
+    public void robotCrashingOnWallBecomesScrap() {
+
+        Game game = GameHarness.game(1, 0,
+                "H....",
+                "..#..",
+                "...R.",
+                ".....",
+                "....R");
+
+        assertTrue(game.move(0, 1));
+
+        assertEquals(".H...\n" +
+                     "..#..\n" +
+                     "...*.\n" +
+                     "...R.\n" +
+                     ".....\n", GameHarness.board(game));
+
+        assertEquals(1, game.getRobots());
+    }
+
+    @Test
+    public void robotsCollidingWinTheGame() {
+
+        Game game = GameHarness.game(1, 0,
+                ".H...",
+                ".....",
+                ".R.R.",
+                ".....",
+                ".....");
+
+        assertTrue(game.move(0, 1));
+
+        assertEquals("..+..\n" +
+                     "..*..\n" +
+                     "...*.\n" +
+                     ".....\n" +
+                     ".....\n", GameHarness.board(game));
+
+        assertEquals(0, game.getRobots());
+        assertFalse(game.isPlaying());
+        assertTrue(game.hasWon());
+    }
+
+    @Test
+    public void teleportUsesAUnit() {
+
+        Game game = GameHarness.game(1, 2,
+                ".....",
+                ".....",
+                "..H..",
+                ".....",
+                "R....");
+
+        assertTrue(game.teleport());
+        assertTrue(game.teleport());
+        assertFalse(game.teleport());
+
+        assertEquals(0, game.getTelUnits());
+        assertEquals(1, GameHarness.count(game, Cell.CELL_HUMAN));
+
+        // Robots don't move when teletransporting
+        assertEquals(Cell.CELL_ROBOT, game.getCells()[4][0].getType());
+    }
+
+    @Test
+    public void nothingWorksAfterGameOver() {
+
+        Game game = GameHarness.game(1, 3,
+                "HR.",
+                "...",
+                "...");
+
+        game.move(0, 1);
+
+        assertFalse(game.move(1, 0));
+        assertFalse(game.teleport());
+    }
+
+    @Test
+    public void undoAndRedoTurns() {
+
+        Game game = GameHarness.game(1, 1,
+                ".....",
+                ".H...",
+                ".....",
+                ".....",
+                "....R");
+
+        String start = GameHarness.snapshot(game);
+
+        game.move(1, 0);
+        String moved = GameHarness.snapshot(game);
+
+        game.teleport();
+        String teleported = GameHarness.snapshot(game);
+
+        assertTrue(game.undo());
+        assertEquals(moved, GameHarness.snapshot(game));
+
+        assertTrue(game.undo());
+        assertEquals(start, GameHarness.snapshot(game));
+        assertFalse(game.undo());
+
+        assertTrue(game.redo());
+        assertTrue(game.redo());
+        assertEquals(teleported, GameHarness.snapshot(game));
+        assertFalse(game.redo());
+    }
+
+    @Test
+    public void gameOverIsReportedOnce() {
+
+        Game game = GameHarness.game(1, 0,
+                ".....",
+                ".H...",
+                ".....",
+                "...R.",
+                ".....");
+
+        final int[] events = new int[3];  // onDead, onWin, onGameOver
+
+        game.setListener(new Game.Listener() {
+
+            @Override
+            public void onDead() {
+
+                ++events[0];
+            }
+
+            @Override
+            public void onWin() {
+
+                ++events[1];
+            }
+
+            @Override
+            public void onGameOver(boolean won) {
+
+                assertFalse(won);
+
+                ++events[2];
+            }
+        });
+
+        // Move next to the robot, and die
+        assertTrue(game.move(1, 1));
+        assertFalse(game.isPlaying());
+
+        // Undo, and die again
+        assertTrue(game.undo());
+        assertTrue(game.isPlaying());
+        assertTrue(game.move(1, 1));
+
+        // Undo and redo the end
+        assertTrue(game.undo());
+        assertTrue(game.redo());
+
+        assertEquals(2, events[0]);
+        assertEquals(0, events[1]);
+        assertEquals(1, events[2]);
+        assertEquals(2, game.getUndos());
+    }
+
+    @Test
+    public void newGameResetsUndos() {
+
+        Game game = GameHarness.game(1, 0,
+                ".....",
+                ".H...",
+                ".....",
+                ".....",
+                "....R");
+
+        game.move(1, 0);
+        game.undo();
+
+        assertEquals(1, game.getUndos());
+
+        game.start(GameHarness.level(0,
+                "H..",
+                "...",
+                "..R"));
+
+        assertEquals(0, game.getUndos());
+    }
+
+    @Test
+    public void newTurnForgetsRedo() {
+
+        Game game = GameHarness.game(1, 0,
+                ".....",
+                ".H...",
+                ".....",
+                ".....",
+                "....R");
+
+        game.move(1, 0);
+        game.undo();
+        game.move(0, 1);
+
+        assertFalse(game.canRedo());
+        assertTrue(game.canUndo());
+    }
+
+    @Test
+    public void historyKeepsOnlyTheLastTurns() {
+
+        Game game = new Game(new Random(1), 2);
+
+        game.start(GameHarness.level(0,
+                "H.........",
+                "..........",
+                "..........",
+                "..........",
+                "..........",
+                "..........",
+                "..........",
+                "..........",
+                "..........",
+                ".........R"));
+
+        game.move(0, 1);
+        game.move(0, 1);
+        game.move(0, 1);
+
+        assertTrue(game.undo());
+        assertTrue(game.undo());
+        assertFalse(game.undo());
+
+        assertEquals(1, game.getTurns());
+    }
+
+    @Test
+    public void pathRobotGoesAroundWalls() {
+
+        Game game = GameHarness.game(1, 0,
+                "R.#..",
+                "..#..",
+                "..#.H",
+                "..#..",
+                ".....");
+
+        game.setRobotStrategy(new PathRobotStrategy());
+
+        // The greedy robot would crash on the wall on its 2nd step
+        for (int i = 0; i < 3; ++i) {
+            assertTrue(game.move(0, i % 2 == 0 ? -1 : 1));
+        }
+
+        assertEquals(1, game.getRobots());
+        assertEquals(0, GameHarness.count(game, Cell.CELL_SCRAP));
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * HistoryTest.java
+ */
+package es.floppysoftware.robots;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Undo / redo history, on its own.
+ */
+public class HistoryTest {
+
+    @Test
+    public void changesKeepAnyPosition() {
+
+        History history = new History(4);
+
+        int[] state = new int[History.STATE_SIZE];
+
+        // Around 2^24 cells, and the biggest board
+        int[] positions = { 0, (1 << 24) - 1, 1 << 24, (1 << 24) + 1, Integer.MAX_VALUE };
+
+        history.begin(state);
+
+        for (int i = 0; i < positions.length; ++i)
+            history.change(positions[i], Cell.CELL_HUMAN, Cell.CELL_ROBOT_TEMP);
+
+        history.end(state);
+
+        History.Turn turn = history.undo();
+
+        assertEquals(positions.length, turn.count);
+
+        for (int i = 0; i < positions.length; ++i) {
+            assertEquals(positions[i], turn.getPos(i));
+            assertEquals(Cell.CELL_HUMAN, turn.getOldType(i));
+            assertEquals(Cell.CELL_ROBOT_TEMP, turn.getNewType(i));
+        }
+    }
+
+    @Test
+    public void oldestTurnIsForgotten() {
+
+        History history = new History(2);
+
+        int[] state = new int[History.STATE_SIZE];
+
+        for (int t = 0; t < 3; ++t) {
+            state[History.STATE_TURNS] = t;
+            history.begin(state);
+            history.change(t, Cell.CELL_GROUND, Cell.CELL_HUMAN);
+            history.end(state);
+        }
+
+        assertEquals(2, history.undo().getPos(0));
+        assertEquals(1, history.undo().getPos(0));
+        assertNull(history.undo());
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * LevelGeneratorTest.java
+ */
+package es.floppysoftware.robots;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Level generator configuration and output.
+ */
+public class LevelGeneratorTest {
+
+    @Test
+    public void badConfigurationIsRejected() {
+
+        assertBadConfiguration(0, 9, 4, 3);
+        assertBadConfiguration(9, LevelGenerator.MAX_SIZE + 1, 4, 3);
+        assertBadConfiguration(9, 9, 0, 3);
+        assertBadConfiguration(9, 9, 81, 3);
+        assertBadConfiguration(9, 9, 4, LevelGenerator.MAX_TEL_UNITS + 1);
+
+        // rows * cols doesn't fit in an int
+        assertBadConfiguration(50000, 50000, 4, 3);
+        assertBadConfiguration(LevelGenerator.MAX_SIZE, LevelGenerator.MAX_SIZE, 4, 3);
+    }
+
+    @Test
+    public void sameSeedGivesSameLevel() {
+
+        LevelGenerator generator = new LevelGenerator(12, 20, 10, 3);
+
+        for (int style = 0; style < LevelGenerator.STYLES; ++style) {
+
+            Level first = generator.generate(1234, style);
+            Level second = generator.generate(first.getSeed(), style);
+
+            assertTrue(first.getRobots() > 0);
+
+            for (int r = 0; r < first.getRows(); ++r) {
+                for (int c = 0; c < first.getCols(); ++c) {
+                    assertEquals(first.getType(r, c), second.getType(r, c));
+                }
+            }
+        }
+    }
+
+    /**
+     * Check that a generator configuration is rejected.
+     *
+     * @param rows      # of board rows
+     * @param cols      # of board columns
+     * @param robots    # of robots in board
+     * @param telUnits  # of teletransporting units on start
+     */
+    private void assertBadConfiguration(int rows, int cols, int robots, int telUnits) {
+
+        try {
+            new LevelGenerator(rows, cols, robots, telUnits);
+            fail("Bad configuration accepted: " + rows + " x " + cols + ", " + robots + ", " + telUnits);
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * LevelPackTest.java
+ */
+package es.floppysoftware.robots;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Level packs, as written by the pack writer and read by the game.
+ */
+public class LevelPackTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void levelsAreReadAsWritten() throws IOException {
+
+        File path = folder.newFile("levels.pak");
+
+        Level first = GameHarness.level(3,
+                "H..",
+                ".#.",
+                "..R");
+
+        Level second = GameHarness.level(1,
+                "R*..H",
+                "....R");
+
+        first.setSeed(42);
+        second.setSeed(-7);
+
+        LevelPackWriter writer = new LevelPackWriter(path);
+
+        writer.add(first);
+        writer.add(second);
+        writer.close();
+
+        LevelPack pack = new LevelPack(path);
+
+        try {
+            assertEquals(2, pack.getCount());
+
+            assertSameLevel(second, pack.read(1));
+            assertSameLevel(first, pack.read(0));
+        } finally {
+            pack.close();
+        }
+    }
+
+    @Test
+    public void discardedPackIsDeleted() throws IOException {
+
+        File path = folder.newFile("partial.pak");
+
+        LevelPackWriter writer = new LevelPackWriter(path);
+
+        writer.add(GameHarness.level(0, "H.R"));
+        writer.discard();
+
+        assertFalse(path.exists());
+    }
+
+    @Test
+    public void negativeCountIsRejected() throws IOException {
+
+        assertBadPack(writeHeader(-5, LevelPack.HEADER_SIZE, 0));
+    }
+
+    @Test
+    public void indexOutOfFileIsRejected() throws IOException {
+
+        // The index doesn't fit
+        assertBadPack(writeHeader(2, LevelPack.HEADER_SIZE, 4));
+
+        // The index is past the end
+        assertBadPack(writeHeader(1, 1000, 4));
+
+        // The index overlaps the header
+        assertBadPack(writeHeader(1, 0, 4));
+    }
+
+    @Test
+    public void emptyPackIsValid() throws IOException {
+
+        LevelPack pack = new LevelPack(writeHeader(0, LevelPack.HEADER_SIZE, 0));
+
+        try {
+            assertEquals(0, pack.getCount());
+        } finally {
+            pack.close();
+        }
+    }
+
+    /**
+     * Write a pack with a header and some zero bytes.
+     *
+     * @param count        # of levels
+     * @param indexOffset  Index position in file
+     * @param extra        # of bytes after the header
+     * @return             Pack file
+     * @throws IOException  On I/O errors
+     */
+    private File writeHeader(int count, int indexOffset, int extra) throws IOException {
+
+        File path = folder.newFile();
+
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(path));
+
+        try {
+            out.writeInt(LevelPack.MAGIC);
+            out.writeInt(LevelPack.VERSION);
+            out.writeInt(count);
+            out.writeInt(indexOffset);
+            out.write(new byte[extra]);
+        } finally {
+            out.close();
+        }
+
+        return path;
+    }
+
+    /**
+     * Check that a pack can't be opened.
+     *
+     * @param path  Pack file
+     */
+    private void assertBadPack(File path) {
+
+        try {
+            new LevelPack(path).close();
+            fail("Bad pack opened");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Check that two levels are the same.
+     *
+     * @param expected  Expected level
+     * @param actual    Actual level
+     */
+    private void assertSameLevel(Level expected, Level actual) {
+
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getCols(), actual.getCols());
+        assertEquals(expected.getTelUnits(), actual.getTelUnits());
+
+        for (int r = 0; r < expected.getRows(); ++r) {
+            for (int c = 0; c < expected.getCols(); ++c) {
+                assertEquals(expected.getType(r, c), actual.getType(r, c));
+            }
+        }
+    }
+}